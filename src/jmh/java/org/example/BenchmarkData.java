@@ -0,0 +1,104 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Synthetic rows for the benchmarks, the same seed always gives the same rows
+ */
+final class BenchmarkData
+{
+    private BenchmarkData()
+    {
+    }
+
+    /**
+     * @return the csv lines, one distinct year per row
+     */
+    static List<String> csvLines(int rows)
+    {
+        Random random = new Random(42);
+        List<String> lines = new ArrayList<>(rows);
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            line.setLength(0);
+            line.append(1000 + i);
+            for (int month = 0; month < RainfallRecord.MONTHS; month++)
+                line.append(',').append(random.nextInt(300));
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * @return the csv lines as one newline separated buffer
+     */
+    static ByteBuffer csvBuffer(List<String> lines)
+    {
+        StringBuilder csv = new StringBuilder();
+        for (String line : lines)
+            csv.append(line).append('\n');
+        return ByteBuffer.wrap(csv.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @return the parsed data file lines of the csv lines
+     */
+    static List<Writable> textRows(List<String> lines)
+    {
+        List<Writable> rows = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            String parsed = DataFileParser.parseLine(line);
+            rows.add(new Text(parsed.substring(0, parsed.length() - 1)));
+        }
+        return rows;
+    }
+
+    /**
+     * @return the binary records of the csv lines
+     */
+    static List<Writable> binaryRows(List<String> lines)
+    {
+        List<Writable> rows = new ArrayList<>(lines.size());
+        for (Writable text : textRows(lines)) {
+            RainfallRecord record = new RainfallRecord();
+            record.parse((Text) text);
+            rows.add(record);
+        }
+        return rows;
+    }
+
+    /**
+     * A record writer that hands every pair to the blackhole
+     */
+    static class BlackholeWriter<K, V> extends RecordWriter<K, V>
+    {
+        private final Blackhole blackhole;
+
+        BlackholeWriter(Blackhole blackhole)
+        {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(K key, V value)
+        {
+            blackhole.consume(key);
+            blackhole.consume(value);
+        }
+
+        @Override
+        public void close(TaskAttemptContext context)
+        {
+        }
+    }
+}
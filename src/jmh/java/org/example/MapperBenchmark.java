@@ -0,0 +1,75 @@
+package org.example;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark of the job mappers, one operation runs a fresh mapper over every row with a stub context.
+ * The job classes live in the default package so they are loaded by name.
+ * The context is created once, Mapper.run only uses the context it is given
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MapperBenchmark
+{
+    @Param({"RainFallMinMaxStatistics", "RainFallSeasonsStatistics", "RainFallDroughtStatistics",
+            "RainFallCombinedStatistics"})
+    public String job;
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"text", "binary"})
+    public String format;
+
+    private Configuration conf;
+    private Class<?> mapperClass;
+    private TaskContexts.ListReader<Writable> reader;
+    private Mapper<LongWritable, Writable, Object, Object>.Context context;
+
+    @Setup
+    public void setup(Blackhole blackhole) throws Exception
+    {
+        conf = new Configuration();
+        mapperClass = Class.forName(job + "$MyMapper");
+        List<String> lines = BenchmarkData.csvLines(rows);
+        reader = new TaskContexts.ListReader<>(
+                format.equals("binary") ? BenchmarkData.binaryRows(lines) : BenchmarkData.textRows(lines));
+        context = TaskContexts.mapContext(newMapper(), conf, reader, new BenchmarkData.BlackholeWriter<>(blackhole));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Mapper<LongWritable, Writable, Object, Object> newMapper()
+    {
+        return (Mapper<LongWritable, Writable, Object, Object>) ReflectionUtils.newInstance(mapperClass, conf);
+    }
+
+    @Benchmark
+    public void map() throws Exception
+    {
+        reader.reset();
+        newMapper().run(context);
+    }
+}
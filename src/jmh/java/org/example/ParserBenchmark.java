@@ -0,0 +1,64 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark of the data file parser line processing, one operation parses every row
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ParserBenchmark
+{
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private List<String> lines;
+    private ByteBuffer csv;
+    private byte[] sync;
+
+    @Setup
+    public void setup()
+    {
+        lines = BenchmarkData.csvLines(rows);
+        csv = BenchmarkData.csvBuffer(lines);
+        sync = RainfallBinaryFormat.newSync();
+    }
+
+    @Benchmark
+    public void lineByLine(Blackhole blackhole)
+    {
+        for (String line : lines)
+            blackhole.consume(DataFileParser.parseLine(line));
+    }
+
+    @Benchmark
+    public Object streamingChunk()
+    {
+        return new StreamingDataFileParser.ChunkTask(csv.duplicate(), null).call();
+    }
+
+    @Benchmark
+    public Object streamingBinaryChunk()
+    {
+        return new StreamingDataFileParser.ChunkTask(csv.duplicate(), sync).call();
+    }
+}
@@ -0,0 +1,107 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark of the job reducers, one operation runs a fresh reducer over the sorted map output
+ * of every row, including the deserialization of the pairs. The reducer and its context are created
+ * before each operation, outside the measurement.
+ * The combined statistics reducer writes through MultipleOutputs, which needs a real output committer,
+ * so it is not part of this benchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ReducerBenchmark
+{
+    @Param({"RainFallMinMaxStatistics", "RainFallSeasonsStatistics", "RainFallDroughtStatistics"})
+    public String job;
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private Configuration conf;
+    private Class<?> reducerClass;
+    private Class<?> keyClass;
+    private Class<?> valueClass;
+    private TaskContexts.SortedPairs pairs;
+    private Reducer<Object, Object, Object, Object> reducer;
+    private Reducer<Object, Object, Object, Object>.Context context;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception
+    {
+        conf = new Configuration();
+        reducerClass = Class.forName(job + "$MyReducer");
+        //the reducer input is the map output of the job mapper
+        final List<WritableComparable> keys = new ArrayList<>();
+        final List<Writable> values = new ArrayList<>();
+        Mapper<LongWritable, Writable, Object, Object> mapper = (Mapper<LongWritable, Writable, Object, Object>)
+                ReflectionUtils.newInstance(Class.forName(job + "$MyMapper"), conf);
+        mapper.run(TaskContexts.mapContext(mapper, conf,
+                new TaskContexts.ListReader<>(BenchmarkData.textRows(BenchmarkData.csvLines(rows))),
+                new RecordWriter<Object, Object>()
+                {
+                    @Override
+                    public void write(Object key, Object value)
+                    {
+                        //the mapper reuses its writables
+                        keys.add(WritableUtils.clone((WritableComparable) key, conf));
+                        values.add(WritableUtils.clone((Writable) value, conf));
+                    }
+
+                    @Override
+                    public void close(TaskAttemptContext context)
+                    {
+                    }
+                }));
+        keyClass = keys.get(0).getClass();
+        valueClass = values.get(0).getClass();
+        pairs = new TaskContexts.SortedPairs(keys, values);
+    }
+
+    @Setup(Level.Invocation)
+    @SuppressWarnings("unchecked")
+    public void prepare(Blackhole blackhole) throws Exception
+    {
+        reducer = (Reducer<Object, Object, Object, Object>) ReflectionUtils.newInstance(reducerClass, conf);
+        context = TaskContexts.reduceContext(reducer, conf, (Class<Object>) keyClass, (Class<Object>) valueClass,
+                pairs, new BenchmarkData.BlackholeWriter<>(blackhole));
+    }
+
+    @Benchmark
+    public void reduce() throws Exception
+    {
+        reducer.run(context);
+    }
+}
@@ -1,8 +1,20 @@
 package org.example;
 
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 
@@ -11,42 +23,153 @@ import java.util.List;
  */
 public class DataFileParser {
 
+    static final String PARSED_FILE_NAME = "ParsedDataFile.txt";
+    static final String SEQUENCE_FILE_NAME = "ParsedDataFile.seq";
+    static final String REPORT_FILE_NAME = "DataFileParser.report.json";
+
     public static void main(String[] args) {
 
         //check if the args[0] is not null or empty
-        if (args[0] == null || args[0].isEmpty()) {
+        if (args.length == 0 || args[0] == null || args[0].isEmpty()) {
             System.out.println("Invalid file name or file location");
             return;
         }
+        //the optional --streaming flag selects the memory mapped, chunk parallel parser,
+        //--binary writes the binary parsed data file with the same parser,
+        //--sequence [codec] writes the records to a block compressed SequenceFile, deflate by default,
+        //--report sets the file of the JSON run report
+        boolean streaming = false;
+        boolean binary = false;
+        String sequenceCodec = null;
+        String reportFile = REPORT_FILE_NAME;
+        for (int i = 1; i < args.length; i++) {
+            if ("--streaming".equals(args[i]))
+                streaming = true;
+            else if ("--binary".equals(args[i]))
+                binary = true;
+            else if ("--sequence".equals(args[i]))
+                sequenceCodec = i + 1 < args.length && !args[i + 1].startsWith("--") ? args[++i] : JobFormats.DEFAULT_CODEC;
+            else if ("--report".equals(args[i]) && i + 1 < args.length)
+                reportFile = args[++i];
+        }
+        RunReport report = new RunReport(DataFileParser.class.getName());
+        Path output = Paths.get(sequenceCodec != null ? SEQUENCE_FILE_NAME
+                : binary ? RainfallBinaryFormat.FILE_NAME : PARSED_FILE_NAME);
+        long start = System.nanoTime();
+        long rows;
         try {
-            //read all the lines of the file
-            List<String> lines = Files.readAllLines(Paths.get(args[0]));
-            lines.forEach(line -> {
-                //it's a csv file, split into tokens using ","
-                String[] tokens = line.split(",");
-                //string builder in order to build a new line with new column of year average
-                StringBuilder stringBuilder = new StringBuilder(tokens[0]);
-                int sum = 0;
-                //aggregate year values
-                for (int i = 1; i < tokens.length; i++) {
-                    stringBuilder.append(" ").append(tokens[i]);
-                    sum += Integer.parseInt(tokens[i]);
-                }
-                //calc the year average
-                int avg = sum / (tokens.length - 1);
-                stringBuilder.append(" ").append(avg);
-                //write the line into the new data file
-                try (FileWriter writer = new FileWriter("ParsedDataFile.txt", true);
-                     BufferedWriter bw = new BufferedWriter(writer))
-                {
-                    bw.write(stringBuilder.append("\n").toString());
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-            });
+            //the text parsers append to the parsed data file
+            long outputBefore = Files.exists(output) && !binary && sequenceCodec == null ? Files.size(output) : 0;
+            if (sequenceCodec != null) {
+                rows = parseSequence(Paths.get(args[0]), output, JobFormats.sequenceCodec(sequenceCodec));
+                report.phase("parse", System.nanoTime() - start);
+            } else if (binary) {
+                rows = new StreamingDataFileParser().parseBinary(Paths.get(args[0]), output);
+                report.phase("parse", System.nanoTime() - start);
+            } else if (streaming) {
+                rows = new StreamingDataFileParser().parse(Paths.get(args[0]), output);
+                report.phase("parse", System.nanoTime() - start);
+            } else {
+                rows = parseLines(args[0], report);
+            }
+            report.counter(RainfallCounters.ROWS_PARSED, rows);
+            report.counter(RainfallCounters.BYTES_IN, Files.size(Paths.get(args[0])));
+            report.counter(RainfallCounters.BYTES_OUT, Files.size(output) - outputBefore);
+            Files.write(Paths.get(reportFile), report.toJson().getBytes(StandardCharsets.UTF_8));
         } catch (Exception e) {
             e.printStackTrace();
+            return;
         }
+        long elapsed = System.nanoTime() - start;
         System.out.println("File created successfully");
+        System.out.println(String.format("Parsed %d rows in %d ms (%.0f rows/sec)",
+                rows, elapsed / 1000000, rows * 1e9 / Math.max(elapsed, 1)));
+    }
+
+    /**
+     * Parse the csv file line by line, appending every parsed line to the data file
+     * @param fileName - the csv file
+     * @param report - gets the time of the read and parse phases
+     * @return the number of parsed rows
+     * @throws Exception
+     */
+    static long parseLines(String fileName, RunReport report) throws Exception {
+        long start = System.nanoTime();
+        //read all the lines of the file
+        List<String> lines = Files.readAllLines(Paths.get(fileName));
+        report.phase("read", System.nanoTime() - start);
+        start = System.nanoTime();
+        lines.forEach(line -> {
+            String parsedLine = parseLine(line);
+            //write the line into the new data file
+            try (FileWriter writer = new FileWriter(PARSED_FILE_NAME, true);
+                 BufferedWriter bw = new BufferedWriter(writer))
+            {
+                bw.write(parsedLine);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+        report.phase("parse and write", System.nanoTime() - start);
+        return lines.size();
+    }
+
+    /**
+     * Parse the csv file line by line into a block compressed SequenceFile of (row number, record) pairs,
+     * replacing an older file. The SequenceFile splits on its own sync markers and names its codec
+     * in its header, the jobs read it with --binary
+     * @return the number of parsed rows
+     */
+    static long parseSequence(Path input, Path output, Class<? extends CompressionCodec> codecClass)
+            throws IOException {
+        Configuration conf = new Configuration();
+        FileSystem fs = FileSystem.getLocal(conf);
+        CompressionCodec codec = ReflectionUtils.newInstance(codecClass, conf);
+        LongWritable key = new LongWritable();
+        RainfallRecord record = new RainfallRecord();
+        Text line = new Text();
+        long rows = 0;
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             SequenceFile.Writer writer = SequenceFile.createWriter(fs, conf,
+                     new org.apache.hadoop.fs.Path(output.toAbsolutePath().toString()),
+                     LongWritable.class, RainfallRecord.class, SequenceFile.CompressionType.BLOCK, codec)) {
+            String csv;
+            while ((csv = reader.readLine()) != null) {
+                String parsedLine = parseLine(csv);
+                line.set(parsedLine.substring(0, parsedLine.length() - 1));
+                //skip the lines the records do not accept
+                if (!record.parse(line))
+                    continue;
+                key.set(rows++);
+                writer.append(key, record);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Parse a csv line into a line of the parsed data file
+     * @param line - the csv line, the optional station and the year followed by the monthly values
+     * @return the space separated line with the year average appended, ending with a newline
+     */
+    static String parseLine(String line) {
+        //it's a csv file, split into tokens using ","
+        String[] tokens = line.split(",");
+        //a station, a year and 12 months: the station column is kept in front
+        int first = tokens.length == RainfallRecord.MONTHS + 2 ? 1 : 0;
+        //string builder in order to build a new line with new column of year average
+        StringBuilder stringBuilder = new StringBuilder(tokens[0]);
+        if (first == 1)
+            stringBuilder.append(" ").append(tokens[1]);
+        int sum = 0;
+        //aggregate year values
+        for (int i = first + 1; i < tokens.length; i++) {
+            stringBuilder.append(" ").append(tokens[i]);
+            sum += Integer.parseInt(tokens[i]);
+        }
+        //calc the year average
+        int avg = sum / (tokens.length - first - 1);
+        stringBuilder.append(" ").append(avg);
+        return stringBuilder.append("\n").toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,132 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A class represent the drought detection rule of the drought statistics:
+ * 3 or more consecutive years whose average is lower than the multi annual average,
+ * and the detection of many configurable drought rules at once
+ */
+public final class DroughtDetector {
+
+    public static final int MIN_DROUGHT_YEARS = 3;
+
+    private DroughtDetector() {
+    }
+
+    /**
+     * @return the result line of the multi annual average
+     */
+    public static String averageLine(int multiAnnualAvg) {
+        return "The multi annual average is " + multiAnnualAvg;
+    }
+
+    /**
+     * Detect the droughts of a year table
+     * @param years - the years in ascending order
+     * @param averages - the average of each year
+     * @param length - the number of years in the table
+     * @param multiAnnualAvg - the multi annual average
+     * @return the result line of each drought
+     */
+    public static List<String> detect(int[] years, int[] averages, int length, int multiAnnualAvg) {
+        List<String> droughts = new ArrayList<>();
+        int runStart = 0;
+        for (int i = 0; i < length; i++) {
+            if (averages[i] < multiAnnualAvg)
+                continue;
+            //a year that is not below the average closes the run, a run still open at the last year is not reported
+            if (i - runStart >= MIN_DROUGHT_YEARS)
+                droughts.add(droughtLine(years, averages, runStart, i));
+            runStart = i + 1;
+        }
+        return droughts;
+    }
+
+    /**
+     * @return the result line of the drought made of the years from start (inclusive) to end (exclusive)
+     */
+    public static String droughtLine(int[] years, int[] averages, int start, int end) {
+        StringBuilder stringBuilder = new StringBuilder("The following years detected as drought [");
+        for (int i = start; i < end; i++) {
+            stringBuilder.append(years[i]).append(" - ").append(averages[i]);
+            if (i != end - 1)
+                stringBuilder.append(", ");
+        }
+        return stringBuilder.append("]").toString();
+    }
+
+    /**
+     * Detect the droughts of every rule in a single pass over the year table
+     * @param table - the year averages
+     * @param rules - the drought rules
+     * @param mean - the multi annual mean, the baseline of the mean rules
+     * @return the result lines of each rule: the baseline line, then a line for each drought
+     */
+    public static List<List<String>> detect(YearTable table, DroughtRule[] rules, int mean) {
+        int[] baselines = new int[rules.length];
+        List<List<int[]>> runs = runs(table, rules, mean, baselines);
+        int[] years = table.getYears();
+        int[] averages = table.getAverages();
+        List<List<String>> lines = new ArrayList<>();
+        for (int r = 0; r < rules.length; r++) {
+            lines.add(new ArrayList<>());
+            lines.get(r).add(rules[r].baselineLine(baselines[r]));
+            for (int[] run : runs.get(r))
+                lines.get(r).add(droughtLine(years, averages, run[0], run[1]));
+        }
+        return lines;
+    }
+
+    /**
+     * Detect the droughts of every rule in a single pass over the year table, without building the lines
+     * @param table - the year averages
+     * @param rules - the drought rules
+     * @param mean - the multi annual mean, the baseline of the mean rules
+     * @param baselines - gets the baseline of each rule
+     * @return the droughts of each rule, the {start, end} indexes of the table years from start (inclusive)
+     * to end (exclusive)
+     */
+    public static List<List<int[]>> runs(YearTable table, DroughtRule[] rules, int mean, int[] baselines) {
+        int[] averages = table.getAverages();
+        int length = table.size();
+        int median = 0;
+        for (DroughtRule rule : rules) {
+            if (rule.isMedian()) {
+                median = table.median();
+                break;
+            }
+        }
+        int[] runStarts = new int[rules.length];
+        List<List<int[]>> runs = new ArrayList<>();
+        for (int r = 0; r < rules.length; r++) {
+            baselines[r] = rules[r].isMedian() ? median : mean;
+            runs.add(new ArrayList<>());
+        }
+        for (int i = 0; i < length; i++) {
+            for (int r = 0; r < rules.length; r++) {
+                if (rules[r].isBelow(averages[i], baselines[r]))
+                    continue;
+                //a year that is not below the threshold closes the run, a run still open at the last year
+                //is not reported
+                if (i - runStarts[r] >= rules[r].getMinYears())
+                    runs.get(r).add(new int[]{runStarts[r], i});
+                runStarts[r] = i + 1;
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * @return the lines of every rule in rule order, each prefixed by the rule and a tab
+     */
+    public static List<String> label(DroughtRule[] rules, List<List<String>> lines) {
+        List<String> labeled = new ArrayList<>();
+        for (int r = 0; r < rules.length; r++) {
+            for (String line : lines.get(r))
+                labeled.add(rules[r] + "\t" + line);
+        }
+        return labeled;
+    }
+}
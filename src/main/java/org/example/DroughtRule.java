@@ -0,0 +1,84 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A class represent a drought definition: a run of at least "minYears" consecutive years whose average is below
+ * "percent" percent of the baseline, the multi annual mean or the median of the year averages.
+ * A rule is written "baseline:percent:minYears", e.g. "mean:80:2" or "median:90:5",
+ * the drought statistics rule is "mean:100:3"
+ */
+public final class DroughtRule {
+
+    public static final String MEAN = "mean";
+    public static final String MEDIAN = "median";
+    public static final String DEFAULT = MEAN + ":100:" + DroughtDetector.MIN_DROUGHT_YEARS;
+
+    private final boolean median;
+    private final int percent;
+    private final int minYears;
+
+    public DroughtRule(boolean median, int percent, int minYears) {
+        if (percent <= 0 || minYears <= 0)
+            throw new IllegalArgumentException("A drought rule needs a positive percent and year count");
+        this.median = median;
+        this.percent = percent;
+        this.minYears = minYears;
+    }
+
+    /**
+     * @param spec - "baseline:percent:minYears", the baseline is mean or median
+     */
+    public static DroughtRule parse(String spec) {
+        String[] fields = spec.trim().split(":");
+        if (fields.length != 3 || !(fields[0].equals(MEAN) || fields[0].equals(MEDIAN)))
+            throw new IllegalArgumentException("Invalid drought rule " + spec + ", expected mean|median:percent:years");
+        try {
+            return new DroughtRule(fields[0].equals(MEDIAN), Integer.parseInt(fields[1]), Integer.parseInt(fields[2]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid drought rule " + spec + ", expected mean|median:percent:years");
+        }
+    }
+
+    /**
+     * @param specs - the rules separated by commas
+     */
+    public static DroughtRule[] parseAll(String specs) {
+        List<DroughtRule> rules = new ArrayList<>();
+        for (String spec : specs.split(","))
+            rules.add(parse(spec));
+        return rules.toArray(new DroughtRule[0]);
+    }
+
+    public boolean isMedian() {
+        return median;
+    }
+
+    public int getPercent() {
+        return percent;
+    }
+
+    public int getMinYears() {
+        return minYears;
+    }
+
+    /**
+     * @return true if a year average is below the threshold of the baseline, compared without rounding
+     */
+    public boolean isBelow(int average, int baseline) {
+        return (long) average * 100 < (long) percent * baseline;
+    }
+
+    /**
+     * @return the result line of the baseline
+     */
+    public String baselineLine(int baseline) {
+        return median ? "The multi annual median is " + baseline : DroughtDetector.averageLine(baseline);
+    }
+
+    @Override
+    public String toString() {
+        return (median ? MEDIAN : MEAN) + ":" + percent + ":" + minYears;
+    }
+}
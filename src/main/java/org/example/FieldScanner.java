@@ -0,0 +1,98 @@
+package org.example;
+
+import org.apache.hadoop.io.Text;
+
+/**
+ * A class represent a scanner of the int fields of a line, the ints are decoded straight from the bytes.
+ * Spaces, tabs and commas separate the fields, so both the csv and the parsed data file lines can be scanned.
+ * A csv line is scanned strictly: exactly one comma separates two fields, so an empty field is an invalid field
+ * like the data file parser finds it, not a skipped one.
+ * A scanner is reused for every line and allocates nothing
+ */
+public class FieldScanner {
+
+    private byte[] bytes;
+    private int position;
+    private int end;
+    private boolean csv;
+    //true after a csv comma, a field must follow it
+    private boolean pending;
+
+    /**
+     * Start scanning the text, the text must not change while it is scanned
+     * @return this scanner
+     */
+    public FieldScanner reset(Text text) {
+        return reset(text.getBytes(), 0, text.getLength());
+    }
+
+    /**
+     * Start scanning the bytes from offset (inclusive) to offset + length (exclusive)
+     * @return this scanner
+     */
+    public FieldScanner reset(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.position = offset;
+        this.end = offset + length;
+        this.csv = false;
+        this.pending = false;
+        return this;
+    }
+
+    /**
+     * Start scanning a csv line strictly, one comma per field
+     * @return this scanner
+     */
+    public FieldScanner resetCsv(Text text) {
+        reset(text);
+        csv = true;
+        return this;
+    }
+
+    /**
+     * @return true if there is another field
+     */
+    public boolean hasNext() {
+        if (csv)
+            return pending || position < end;
+        while (position < end && isSeparator(bytes[position]))
+            position++;
+        return position < end;
+    }
+
+    /**
+     * Decode the next field as an int
+     * @return the value of the field
+     * @throws NumberFormatException if there is no next field or it is not an int
+     */
+    public int nextInt() {
+        if (!hasNext())
+            throw new NumberFormatException("No more fields");
+        boolean negative = false;
+        if (position < end && (bytes[position] == '-' || bytes[position] == '+')) {
+            negative = bytes[position] == '-';
+            position++;
+        }
+        int start = position;
+        //accumulate negatively so Integer.MIN_VALUE fits
+        int value = 0;
+        while (position < end && !(csv ? bytes[position] == ',' : isSeparator(bytes[position]))) {
+            int digit = bytes[position] - '0';
+            if (digit < 0 || digit > 9 || value < (Integer.MIN_VALUE + digit) / 10)
+                throw new NumberFormatException("Invalid int field at byte " + start);
+            value = value * 10 - digit;
+            position++;
+        }
+        if (position == start || (!negative && value == Integer.MIN_VALUE))
+            throw new NumberFormatException("Invalid int field at byte " + start);
+        //the comma after a csv field is consumed with it
+        pending = csv && position < end;
+        if (pending)
+            position++;
+        return negative ? value : -value;
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == ',' || b == '\t' || b == '\r' || b == '\n';
+    }
+}
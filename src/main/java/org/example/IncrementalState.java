@@ -0,0 +1,112 @@
+package org.example;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A class represent the persisted state of the incremental statistics:
+ * the aggregates of every row processed so far and the processed length of each input file,
+ * a later run reads only the bytes appended after those lengths
+ */
+public class IncrementalState implements Writable {
+
+    //bumped when the layout of the state file changes
+    static final int VERSION = 3;
+
+    private final RainfallAggregates aggregates = new RainfallAggregates();
+    private final Map<String, Long> processed = new HashMap<>();
+
+    public RainfallAggregates getAggregates() {
+        return aggregates;
+    }
+
+    /**
+     * @return the processed length of each input file, by file path
+     */
+    public Map<String, Long> getProcessed() {
+        return processed;
+    }
+
+    /**
+     * Load the state file, the previous state file if a save stopped between its renames,
+     * an empty state if neither exists yet
+     */
+    public static IncrementalState load(Path path, Configuration conf) throws IOException {
+        IncrementalState state = new IncrementalState();
+        FileSystem fs = path.getFileSystem(conf);
+        if (!fs.exists(path))
+            path = previous(path);
+        if (!fs.exists(path))
+            return state;
+        try (FSDataInputStream in = fs.open(path)) {
+            state.readFields(in);
+        }
+        return state;
+    }
+
+    /**
+     * Save the state file, the state is written to a temporary file first and the current state file
+     * is renamed aside until the new one is in place, so a failed run leaves the previous state to load
+     */
+    public void save(Path path, Configuration conf) throws IOException {
+        FileSystem fs = path.getFileSystem(conf);
+        Path temp = new Path(path.getParent(), "." + path.getName() + ".tmp");
+        try (FSDataOutputStream out = fs.create(temp, true)) {
+            write(out);
+        }
+        //the rename does not replace an existing file
+        Path previous = previous(path);
+        if (fs.exists(path)) {
+            if (fs.exists(previous) && !fs.delete(previous, false))
+                throw new IOException("Failed to delete the previous state file " + previous);
+            if (!fs.rename(path, previous))
+                throw new IOException("Failed to rename " + path + " to " + previous);
+        }
+        if (!fs.rename(temp, path))
+            throw new IOException("Failed to rename " + temp + " to " + path);
+        fs.delete(previous, false);
+    }
+
+    /**
+     * @return the name of the state file while a save replaces it
+     */
+    static Path previous(Path path) {
+        return new Path(path.getParent(), "." + path.getName() + ".previous");
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(VERSION);
+        //sorted so the same state is always written the same way
+        Map<String, Long> sorted = new TreeMap<>(processed);
+        out.writeInt(sorted.size());
+        for (Map.Entry<String, Long> entry : sorted.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+        aggregates.write(out);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        int version = in.readInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported state version " + version);
+        processed.clear();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++)
+            processed.put(in.readUTF(), in.readLong());
+        aggregates.readFields(in);
+    }
+}
@@ -0,0 +1,170 @@
+package org.example;
+
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A class represent an open addressing hash map from int keys to int sums,
+ * it stores primitives only so adding a value never allocates
+ */
+public class IntIntHashMap implements Writable {
+
+    private int[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+
+    public IntIntHashMap() {
+        this(64);
+    }
+
+    /**
+     * @param expectedSize - the number of keys the map holds without resizing
+     */
+    public IntIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+    }
+
+    /**
+     * Add the value to the sum of the key
+     * @param key - the key
+     * @param value - the value to add
+     */
+    public void add(int key, int value) {
+        int slot = slot(key);
+        if (used[slot]) {
+            values[slot] += value;
+            return;
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = value;
+        //keep the load factor under 0.5
+        if (++size * 2 > keys.length)
+            resize();
+    }
+
+    /**
+     * Replace the value of the key
+     * @param key - the key
+     * @param value - the new value
+     */
+    public void put(int key, int value) {
+        int slot = slot(key);
+        if (used[slot]) {
+            values[slot] = value;
+            return;
+        }
+        add(key, value);
+    }
+
+    /**
+     * @return the keys in ascending order
+     */
+    public int[] sortedKeys() {
+        int[] sorted = new int[size];
+        int index = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot])
+                sorted[index++] = keys[slot];
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * @return the sum of the key, 0 if the key is absent
+     */
+    public int get(int key) {
+        int slot = slot(key);
+        return used[slot] ? values[slot] : 0;
+    }
+
+    public boolean containsKey(int key) {
+        return used[slot(key)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of slots, iterate the slots with isUsed, keyAt and valueAt
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    public boolean isUsed(int slot) {
+        return used[slot];
+    }
+
+    public int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    public int valueAt(int slot) {
+        return values[slot];
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    /**
+     * Write the size followed by the (key, value) pairs
+     */
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) {
+                out.writeInt(keys[slot]);
+                out.writeInt(values[slot]);
+            }
+        }
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        clear();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++)
+            put(in.readInt(), in.readInt());
+    }
+
+    private int slot(int key) {
+        int mask = keys.length - 1;
+        //spread the bits, consecutive keys are common (years)
+        int hash = key * 0x9E3779B9;
+        int slot = (hash ^ hash >>> 16) & mask;
+        while (used[slot] && keys[slot] != key)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        used = new boolean[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = slot(oldKeys[i]);
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.example;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.compress.BZip2Codec;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.hadoop.io.compress.GzipCodec;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.OutputFormat;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+
+import java.io.IOException;
+
+/**
+ * A class represent the input, output and compression setup shared by the job drivers:
+ * "--binary" reads the binary parsed data file (raw or a SequenceFile), "--csv" reads the csv data files
+ * without the data file parser, "--structured [sequence|json]" writes typed results, "--compress codec" compresses
+ * the output, "--sequence-output" writes block compressed SequenceFiles instead of text and
+ * "--map-compression codec|none" sets the codec of the map output, deflate by default.
+ * The codecs are the pure Java ones of hadoop-core: deflate, gzip and bzip2. Without the native library gzip has
+ * no compressor, so it compresses the text output only, not the SequenceFiles nor the map output
+ */
+public class JobFormats {
+
+    public static final String DEFAULT_CODEC = "deflate";
+    public static final String NONE = "none";
+    //true when the reducers write RainfallResult keys instead of the result sentences
+    public static final String STRUCTURED = "rainfall.output.structured";
+    public static final String SEQUENCE = "sequence";
+    public static final String JSON = "json";
+    //true when the in process engine reads the csv data files
+    public static final String CSV_INPUT = "rainfall.input.csv";
+    static final long DEFAULT_MAX_SPLIT_BYTES = 128L * 1024 * 1024;
+
+    //the hadoop 1 property names
+    static final String MAP_OUTPUT_COMPRESS = "mapred.compress.map.output";
+    static final String MAP_OUTPUT_CODEC = "mapred.map.output.compression.codec";
+    //the max size of a combined split, the combine file input format reads the new property name
+    static final String MAX_SPLIT_SIZE = "mapreduce.input.fileinputformat.split.maxsize";
+
+    private JobFormats() {
+    }
+
+    /**
+     * @param name - deflate, gzip or bzip2
+     * @return the codec class
+     */
+    public static Class<? extends CompressionCodec> codec(String name) {
+        switch (name) {
+            case "deflate":
+                return DefaultCodec.class;
+            case "gzip":
+                return GzipCodec.class;
+            case "bzip2":
+                return BZip2Codec.class;
+            default:
+                throw new IllegalArgumentException("Unknown codec " + name + ", expected deflate, gzip or bzip2");
+        }
+    }
+
+    /**
+     * @return the codec class of a block compressed SequenceFile, gzip needs the native library there
+     */
+    public static Class<? extends CompressionCodec> sequenceCodec(String name) {
+        if (name.equals("gzip"))
+            throw new IllegalArgumentException("SequenceFiles need the native library for gzip, use deflate or bzip2");
+        return codec(name);
+    }
+
+    /**
+     * Set the input format and the input paths of a job
+     */
+    public static void configureInput(Job job, JobOptions options) throws IOException {
+        //--binary reads the binary parsed data file instead of the text one, --csv reads the csv data files
+        //in combined splits of up to --max-split-bytes, compressed text files are read by the text input format
+        if (options.has("--binary") && options.has("--csv"))
+            throw new IllegalArgumentException("--binary and --csv can not be used together");
+        if (options.has("--binary"))
+            job.setInputFormatClass(RainfallInputFormat.class);
+        if (options.has("--csv")) {
+            job.setInputFormatClass(RainfallCsvInputFormat.class);
+            job.getConfiguration().setLong(MAX_SPLIT_SIZE,
+                    Long.parseLong(options.get("--max-split-bytes", Long.toString(DEFAULT_MAX_SPLIT_BYTES))));
+        }
+        FileInputFormat.setInputPaths(job, new Path(options.getInput()));
+    }
+
+    /**
+     * Set the input of the in process engine the way the job would read it
+     */
+    public static void configureLocal(Configuration conf, JobOptions options) {
+        conf.setBoolean(CSV_INPUT, options.has("--csv"));
+    }
+
+    /**
+     * Set the map output compression of a job, on unless "--map-compression none"
+     */
+    public static void configureMapOutput(Job job, JobOptions options) {
+        Configuration conf = job.getConfiguration();
+        String name = options.get("--map-compression", DEFAULT_CODEC);
+        //the spill writes through a compressor, the pure Java gzip codec has none
+        if (name.equals("gzip"))
+            throw new IllegalArgumentException("The map output needs the native library for gzip, use deflate or bzip2");
+        if (name.equals(NONE)) {
+            conf.setBoolean(MAP_OUTPUT_COMPRESS, false);
+            return;
+        }
+        conf.setBoolean(MAP_OUTPUT_COMPRESS, true);
+        conf.setClass(MAP_OUTPUT_CODEC, codec(name), CompressionCodec.class);
+    }
+
+    /**
+     * Set the output compression and the output path of a job
+     * @return the output format class of the job and of its named outputs
+     */
+    @SuppressWarnings("rawtypes")
+    public static Class<? extends OutputFormat> configureOutput(Job job, JobOptions options) {
+        if (options.has("--structured"))
+            throw new IllegalArgumentException(
+                    "--structured is written by the single job min max, seasons and drought statistics only");
+        FileOutputFormat.setOutputPath(job, new Path(options.getOutput()));
+        if (options.has("--sequence-output"))
+            return sequenceOutput(job, options);
+        return textOutput(job, options);
+    }
+
+    /**
+     * Set the output of a job whose reducer writes RainfallResult keys: "--structured" or "--structured sequence"
+     * writes block compressed SequenceFiles of (result, null) pairs, "--structured json" writes a JSON object
+     * per line, otherwise the job writes the text results of configureOutput
+     * @return the output format class
+     */
+    @SuppressWarnings("rawtypes")
+    public static Class<? extends OutputFormat> configureStructuredOutput(Job job, JobOptions options) {
+        if (!options.has("--structured"))
+            return configureOutput(job, options);
+        String form = options.get("--structured", SEQUENCE);
+        if (!form.equals(SEQUENCE) && !form.equals(JSON))
+            throw new IllegalArgumentException("Unknown structured output " + form + ", expected sequence or json");
+        FileOutputFormat.setOutputPath(job, new Path(options.getOutput()));
+        //the map output keeps the types the job output had
+        job.setMapOutputKeyClass(job.getMapOutputKeyClass());
+        job.setMapOutputValueClass(job.getMapOutputValueClass());
+        job.setOutputKeyClass(RainfallResult.class);
+        job.setOutputValueClass(NullWritable.class);
+        job.getConfiguration().setBoolean(STRUCTURED, true);
+        return form.equals(JSON) ? textOutput(job, options) : sequenceOutput(job, options);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static Class<? extends OutputFormat> sequenceOutput(Job job, JobOptions options) {
+        //a SequenceFile is always block compressed, so it stays splittable for the next job
+        FileOutputFormat.setCompressOutput(job, true);
+        FileOutputFormat.setOutputCompressorClass(job, sequenceCodec(options.get("--compress", DEFAULT_CODEC)));
+        SequenceFileOutputFormat.setOutputCompressionType(job, SequenceFile.CompressionType.BLOCK);
+        return SequenceFileOutputFormat.class;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static Class<? extends OutputFormat> textOutput(Job job, JobOptions options) {
+        if (options.has("--compress")) {
+            FileOutputFormat.setCompressOutput(job, true);
+            FileOutputFormat.setOutputCompressorClass(job, codec(options.get("--compress", DEFAULT_CODEC)));
+        }
+        return TextOutputFormat.class;
+    }
+}
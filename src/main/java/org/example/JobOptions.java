@@ -0,0 +1,84 @@
+package org.example;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A class represent the command line of a rainfall job:
+ * the input path, the output path and the optional "--name" or "--name value" flags
+ */
+public class JobOptions {
+
+    private final String input;
+    private final String output;
+    private final Map<String, String> flags = new HashMap<>();
+
+    private JobOptions(String input, String output) {
+        this.input = input;
+        this.output = output;
+    }
+
+    /**
+     * @param args - the command line arguments, input and output first
+     * @return the parsed options
+     */
+    public static JobOptions parse(String[] args) {
+        if (args.length < 2)
+            throw new IllegalArgumentException("Usage: <input path> <output path> [--flag [value]]...");
+        return parseFlags(new JobOptions(args[0], args[1]), args, 2);
+    }
+
+    /**
+     * @param args - the command line arguments of a process without input, the output first
+     * @return the parsed options, the input is null
+     */
+    public static JobOptions parseOutput(String[] args) {
+        if (args.length < 1 || args[0].startsWith("--"))
+            throw new IllegalArgumentException("Usage: <output path> [--flag [value]]...");
+        return parseFlags(new JobOptions(null, args[0]), args, 1);
+    }
+
+    private static JobOptions parseFlags(JobOptions options, String[] args, int from) {
+        for (int i = from; i < args.length; i++) {
+            if (!args[i].startsWith("--"))
+                throw new IllegalArgumentException("Unexpected argument " + args[i]);
+            //a flag takes the next argument as its value unless that is another flag
+            if (i + 1 < args.length && !args[i + 1].startsWith("--"))
+                options.flags.put(args[i], args[++i]);
+            else
+                options.flags.put(args[i], "");
+        }
+        return options;
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+
+    public boolean has(String flag) {
+        return flags.containsKey(flag);
+    }
+
+    public String get(String flag, String defaultValue) {
+        String value = flags.get(flag);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    public int getInt(String flag, int defaultValue) {
+        String value = flags.get(flag);
+        return value == null || value.isEmpty() ? defaultValue : Integer.parseInt(value);
+    }
+
+    /**
+     * @return the flags and their values ("" for a flag without value), sorted by flag
+     */
+    public Map<String, String> getFlags() {
+        return Collections.unmodifiableMap(new TreeMap<>(flags));
+    }
+}
@@ -0,0 +1,242 @@
+package org.example;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.lib.input.LineRecordReader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A class represent an in process execution engine for small and medium inputs.
+ * The input files are split like the map reduce input, the splits are aggregated in parallel on a fork join
+ * pool and merged in input order, there is no job setup, spill or sort
+ */
+public class LocalRainfallEngine {
+
+    //inputs up to this size run locally when the engine is "auto"
+    static final long DEFAULT_LOCAL_MAX_BYTES = 128L * 1024 * 1024;
+    static final long SPLIT_SIZE = 8L * 1024 * 1024;
+
+    private final Configuration conf;
+    private final int parallelism;
+    //the totals of every read split, for the run report
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong malformed = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+
+    public LocalRainfallEngine(Configuration conf) {
+        this(conf, Runtime.getRuntime().availableProcessors());
+    }
+
+    public LocalRainfallEngine(Configuration conf, int parallelism) {
+        this.conf = conf;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Choose the execution engine of a job: "--engine local", "--engine cluster" (the default)
+     * or "--engine auto", which runs locally when the input is at most "--local-max-bytes" bytes.
+     * The input format of the options (e.g. "--csv") is set on the configuration of the engine
+     * @return true if the job runs in process
+     */
+    public static boolean isLocal(JobOptions options, Configuration conf) throws IOException {
+        JobFormats.configureLocal(conf, options);
+        String engine = options.get("--engine", "cluster");
+        //the engine writes the text results only
+        if (options.has("--structured")) {
+            if (engine.equals("local"))
+                throw new IllegalArgumentException("--structured needs the map reduce engine");
+            return false;
+        }
+        if (engine.equals("local"))
+            return true;
+        if (engine.equals("cluster"))
+            return false;
+        if (!engine.equals("auto"))
+            throw new IllegalArgumentException("Unknown engine " + engine + ", expected local, cluster or auto");
+        Path input = new Path(options.getInput());
+        long size = input.getFileSystem(conf).getContentSummary(input).getLength();
+        return size <= Long.parseLong(options.get("--local-max-bytes", Long.toString(DEFAULT_LOCAL_MAX_BYTES)));
+    }
+
+    /**
+     * Aggregate the rows of the input
+     * @param input - a parsed data file or a directory of parsed data files
+     * @param binary - true if the files are binary parsed data files
+     * @return the aggregates of all the rows
+     */
+    public RainfallAggregates aggregate(Path input, boolean binary) throws IOException {
+        return aggregate(input, split(input, new HashMap<>(), binary), binary);
+    }
+
+    /**
+     * Aggregate only the rows appended to the input since the last run, the files are text or csv files,
+     * a binary file is rewritten with a new sync marker rather than appended to
+     * @param input - a parsed data file or a directory of parsed data files
+     * @param processed - the processed length of each file, updated to the current lengths
+     * @return the aggregates of the appended rows
+     */
+    public RainfallAggregates aggregateAppended(Path input, Map<String, Long> processed) throws IOException {
+        return aggregate(input, split(input, processed, false), false);
+    }
+
+    private RainfallAggregates aggregate(Path input, List<FileSplit> splits, boolean binary) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ForkJoinTask<RainfallAggregates>> tasks = new ArrayList<>();
+            for (FileSplit split : splits)
+                tasks.add(pool.submit(() -> aggregate(split, binary)));
+            //merge in input order so ties are resolved like a sequential scan
+            RainfallAggregates aggregates = new RainfallAggregates();
+            for (ForkJoinTask<RainfallAggregates> task : tasks)
+                aggregates.merge(task.get());
+            return aggregates;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while aggregating", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to aggregate " + input, e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private List<FileSplit> split(Path input, Map<String, Long> processed, boolean binary) throws IOException {
+        FileSystem fs = input.getFileSystem(conf);
+        FileStatus[] files = fs.isFile(input) ? new FileStatus[]{fs.getFileStatus(input)} : fs.listStatus(input);
+        Arrays.sort(files);
+        CompressionCodecFactory codecs = new CompressionCodecFactory(conf);
+        List<FileSplit> splits = new ArrayList<>();
+        for (FileStatus file : files) {
+            //skip the hidden files like the file input format does
+            String name = file.getPath().getName();
+            if (file.isDir() || name.startsWith("_") || name.startsWith("."))
+                continue;
+            //a file is split from the end of the rows already processed
+            String key = file.getPath().toString();
+            Long offset = processed.get(key);
+            long from = offset == null ? 0 : offset;
+            if (from > file.getLen())
+                throw new IOException("File " + key + " is shorter than the processed " + from + " bytes");
+            //a compressed file is read whole, from the start of the stream
+            if (codecs.getCodec(file.getPath()) != null) {
+                if (from > 0 && from < file.getLen())
+                    throw new IOException("Compressed file " + key + " changed after it was processed");
+                if (from == 0 && file.getLen() > 0)
+                    splits.add(new FileSplit(file.getPath(), 0, file.getLen(), null));
+                processed.put(key, file.getLen());
+                continue;
+            }
+            //a line split skips the line it starts in, so it starts at the newline that ends the processed rows
+            if (from > 0 && !binary && from < file.getLen())
+                from--;
+            for (long start = from; start < file.getLen(); start += SPLIT_SIZE)
+                splits.add(new FileSplit(file.getPath(), start, Math.min(SPLIT_SIZE, file.getLen() - start), null));
+            processed.put(key, file.getLen());
+        }
+        return splits;
+    }
+
+    private RainfallAggregates aggregate(FileSplit split, boolean binary) throws IOException, InterruptedException {
+        RainfallAggregates aggregates = new RainfallAggregates();
+        read(split, binary, aggregates::add);
+        return aggregates;
+    }
+
+    /**
+     * Read every row of the input in input order, on the calling thread
+     * @param input - a parsed data file or a directory of parsed data files
+     * @param binary - true if the files are binary parsed data files
+     * @param rows - gets every row, the record is reused
+     */
+    public void scan(Path input, boolean binary, Consumer<RainfallRecord> rows) throws IOException {
+        try {
+            for (FileSplit split : split(input, new HashMap<>(), binary))
+                read(split, binary, rows);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading", e);
+        }
+    }
+
+    private void read(FileSplit split, boolean binary, Consumer<RainfallRecord> rows)
+            throws IOException, InterruptedException {
+        RainfallRecord record = new RainfallRecord();
+        RecordReader<LongWritable, ? extends Writable> reader = binary ? new RainfallRecordReader()
+                : conf.getBoolean(JobFormats.CSV_INPUT, false) ? new RainfallCsvRecordReader() : new LineRecordReader();
+        long read = 0;
+        long skipped = 0;
+        try {
+            reader.initialize(split, new TaskAttemptContext(conf, new TaskAttemptID()));
+            while (reader.nextKeyValue()) {
+                RainfallRecord row = RainfallRecord.of(reader.getCurrentValue(), record);
+                //skip malformed lines
+                if (row != null) {
+                    rows.accept(row);
+                    read++;
+                } else {
+                    skipped++;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        //the csv reader skips the malformed lines itself
+        if (reader instanceof RainfallCsvRecordReader)
+            skipped += ((RainfallCsvRecordReader) reader).getSkipped();
+        this.rows.addAndGet(read);
+        malformed.addAndGet(skipped);
+        bytesIn.addAndGet(split.getLength());
+    }
+
+    /**
+     * Add the totals of the rows read so far to a run report
+     */
+    public void report(RunReport report) {
+        report.counter(RainfallCounters.ROWS_PARSED, rows.get());
+        report.counter(RainfallCounters.MALFORMED_ROWS, malformed.get());
+        report.counter(RainfallCounters.BYTES_IN, bytesIn.get());
+    }
+
+    /**
+     * Write result files the way the job output looks: the output directory must not exist,
+     * each file is written with its lines and a _SUCCESS marker is added
+     * @param output - the output directory
+     * @param names - the file names
+     * @param files - the lines of each file
+     */
+    public void write(Path output, String[] names, List<List<String>> files) throws IOException {
+        FileSystem fs = output.getFileSystem(conf);
+        if (fs.exists(output))
+            throw new IOException("Output directory " + output + " already exists");
+        fs.mkdirs(output);
+        for (int i = 0; i < names.length; i++) {
+            try (FSDataOutputStream out = fs.create(new Path(output, names[i]))) {
+                for (String line : files.get(i))
+                    out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        fs.create(new Path(output, "_SUCCESS")).close();
+    }
+}
@@ -0,0 +1,69 @@
+package org.example;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Mapper;
+
+import java.io.IOException;
+
+/**
+ * A class represent a mapper that counts its rows and records and times its setup, map and cleanup phases.
+ * The counts are kept in fields and added to the RainfallCounters once, after the cleanup
+ */
+public abstract class MeteredMapper<KI, VI, KO, VO> extends Mapper<KI, VI, KO, VO> {
+
+    private long rows;
+    private long malformed;
+    private long bytesIn;
+    private long emitted;
+
+    /**
+     * Get the record of an input value and count it
+     * @return the record or null if the line is malformed
+     */
+    protected RainfallRecord parse(Writable value, RainfallRecord reuse) {
+        //a text line is followed by its newline
+        bytesIn += value instanceof Text ? ((Text) value).getLength() + 1 : RainfallRecord.SIZE;
+        RainfallRecord row = RainfallRecord.of(value, reuse);
+        if (row == null)
+            malformed++;
+        else
+            rows++;
+        return row;
+    }
+
+    /**
+     * Count a parsed row as malformed after all, e.g. a row whose year the job can not key
+     */
+    protected void reject() {
+        rows--;
+        malformed++;
+    }
+
+    /**
+     * Write a map output pair and count it
+     */
+    protected void emit(Context context, KO key, VO value) throws IOException, InterruptedException {
+        context.write(key, value);
+        emitted++;
+    }
+
+    @Override
+    public void run(Context context) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        setup(context);
+        long mapStart = System.nanoTime();
+        while (context.nextKeyValue())
+            map(context.getCurrentKey(), context.getCurrentValue(), context);
+        long cleanupStart = System.nanoTime();
+        cleanup(context);
+        long end = System.nanoTime();
+        context.getCounter(RainfallCounters.MAP_SETUP_NANOS).increment(mapStart - start);
+        context.getCounter(RainfallCounters.MAP_NANOS).increment(cleanupStart - mapStart);
+        context.getCounter(RainfallCounters.MAP_CLEANUP_NANOS).increment(end - cleanupStart);
+        context.getCounter(RainfallCounters.ROWS_PARSED).increment(rows);
+        context.getCounter(RainfallCounters.MALFORMED_ROWS).increment(malformed);
+        context.getCounter(RainfallCounters.BYTES_IN).increment(bytesIn);
+        context.getCounter(RainfallCounters.MAP_RECORDS_EMITTED).increment(emitted);
+    }
+}
@@ -0,0 +1,83 @@
+package org.example;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Reducer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A class represent a reducer that counts its result lines and times its setup, reduce and cleanup phases.
+ * The counts are kept in fields and added to the RainfallCounters once, after the cleanup
+ */
+public abstract class MeteredReducer<KI, VI, KO, VO> extends Reducer<KI, VI, KO, VO> {
+
+    private long emitted;
+    private long bytesOut;
+
+    /**
+     * Write a result pair and count it
+     */
+    protected void emit(Context context, KO key, VO value) throws IOException, InterruptedException {
+        context.write(key, value);
+        emitted(key, value);
+    }
+
+    /**
+     * Count a result pair written by other means, e.g. a named output
+     */
+    protected void emitted(Object key, Object value) {
+        emitted++;
+        //the text output format line: the key, a tab and the value unless it is null, then the newline
+        bytesOut += length(key) + 1;
+        if (value != null && !(value instanceof NullWritable))
+            bytesOut += 1 + length(value);
+    }
+
+    /**
+     * @return the bytes of the value in a text output line, the common values are measured without a String
+     */
+    static int length(Object value) {
+        if (value instanceof Text)
+            return ((Text) value).getLength();
+        if (value instanceof IntWritable)
+            return digits(((IntWritable) value).get());
+        if (value instanceof LongWritable)
+            return digits(((LongWritable) value).get());
+        //a typed result counts its serialized size, no JSON is built
+        if (value instanceof RainfallResult)
+            return ((RainfallResult) value).getSize();
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * @return the characters of the decimal value, the minus sign included
+     */
+    static int digits(long value) {
+        int digits = value < 0 ? 2 : 1;
+        //the division keeps the sign, so Long.MIN_VALUE is never negated
+        for (long rest = value / 10; rest != 0; rest /= 10)
+            digits++;
+        return digits;
+    }
+
+    @Override
+    public void run(Context context) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        setup(context);
+        long reduceStart = System.nanoTime();
+        while (context.nextKey())
+            reduce(context.getCurrentKey(), context.getValues(), context);
+        long cleanupStart = System.nanoTime();
+        cleanup(context);
+        long end = System.nanoTime();
+        context.getCounter(RainfallCounters.REDUCE_SETUP_NANOS).increment(reduceStart - start);
+        context.getCounter(RainfallCounters.REDUCE_NANOS).increment(cleanupStart - reduceStart);
+        context.getCounter(RainfallCounters.REDUCE_CLEANUP_NANOS).increment(end - cleanupStart);
+        context.getCounter(RainfallCounters.REDUCE_RECORDS_EMITTED).increment(emitted);
+        context.getCounter(RainfallCounters.BYTES_OUT).increment(bytesOut);
+    }
+}
@@ -0,0 +1,77 @@
+package org.example;
+
+/**
+ * A class represent rolling sums over the last N monthly values for several window sizes.
+ * The values are kept in one ring buffer as large as the largest window, adding a month
+ * updates every sum in O(1) per window
+ */
+public class MonthlyWindows {
+
+    private final int[] sizes;
+    private final int[] ring;
+    private final long[] sums;
+    private int position;
+    private long count;
+
+    /**
+     * @param sizes - the window sizes in months, e.g. 3, 6 and 12
+     */
+    public MonthlyWindows(int... sizes) {
+        int capacity = 1;
+        for (int size : sizes) {
+            if (size < 1)
+                throw new IllegalArgumentException("Invalid window size " + size);
+            capacity = Math.max(capacity, size);
+        }
+        this.sizes = sizes.clone();
+        ring = new int[capacity];
+        sums = new long[sizes.length];
+    }
+
+    public int windows() {
+        return sizes.length;
+    }
+
+    public int size(int window) {
+        return sizes[window];
+    }
+
+    /**
+     * Add the value of the next month
+     */
+    public void add(int value) {
+        for (int i = 0; i < sizes.length; i++) {
+            sums[i] += value;
+            //the month that leaves the window was added sizes[i] months ago
+            if (count >= sizes[i])
+                sums[i] -= ring[Math.floorMod(position - sizes[i], ring.length)];
+        }
+        ring[position] = value;
+        position = (position + 1) % ring.length;
+        count++;
+    }
+
+    /**
+     * @return true if the window holds as many months as its size
+     */
+    public boolean isFull(int window) {
+        return count >= sizes[window];
+    }
+
+    /**
+     * @return the sum of the months of the window
+     */
+    public long sum(int window) {
+        return sums[window];
+    }
+
+    /**
+     * Forget every month, e.g. after a gap in the years
+     */
+    public void reset() {
+        position = 0;
+        count = 0;
+        for (int i = 0; i < sums.length; i++)
+            sums[i] = 0;
+    }
+}
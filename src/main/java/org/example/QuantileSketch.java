@@ -0,0 +1,168 @@
+package org.example;
+
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A class represent a compact, mergeable quantile sketch of int values (a stack of compactors, like KLL).
+ * Level h holds up to K values that stand for 2^h values each. A full level is sorted and every other value,
+ * starting at a random offset, moves up a level, so a sketch of n values keeps about K * log2(n / K) values
+ * and the rank error is about log2(n / K) / K. Below K values the quantiles are exact.
+ * The offsets come from a seeded generator, the same input gives the same sketch
+ */
+public class QuantileSketch implements Writable {
+
+    public static final int DEFAULT_SIZE = 256;
+
+    private int k;
+    private long count;
+    private long seed = 0x9E3779B97F4A7C15L;
+    private int[][] levels = new int[0][];
+    private int[] sizes = new int[0];
+
+    public QuantileSketch() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * @param k - the capacity of a level, the larger the more accurate
+     */
+    public QuantileSketch(int k) {
+        if (k < 2)
+            throw new IllegalArgumentException("Invalid sketch size " + k);
+        this.k = k;
+    }
+
+    /**
+     * @return the amount of values added
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public void add(int value) {
+        append(0, value);
+        count++;
+        compact();
+    }
+
+    /**
+     * Add the values of another sketch
+     */
+    public void merge(QuantileSketch other) {
+        for (int h = 0; h < other.levels.length; h++) {
+            for (int i = 0; i < other.sizes[h]; i++)
+                append(h, other.levels[h][i]);
+        }
+        count += other.count;
+        //xorshift never leaves 0
+        seed = seed * 0x5DEECE66DL + other.seed;
+        if (seed == 0)
+            seed = 1;
+        compact();
+    }
+
+    /**
+     * @param fraction - the quantile, e.g. 0.95
+     * @return the smallest kept value whose weighted rank reaches the fraction of the values, 0 without values
+     */
+    public int quantile(double fraction) {
+        if (fraction < 0 || fraction > 1)
+            throw new IllegalArgumentException("Invalid quantile " + fraction);
+        int kept = 0;
+        for (int size : sizes)
+            kept += size;
+        if (kept == 0)
+            return 0;
+        //the kept values with their level in the low bits, sorted by value
+        long[] weighted = new long[kept];
+        int next = 0;
+        for (int h = 0; h < levels.length; h++) {
+            for (int i = 0; i < sizes[h]; i++)
+                weighted[next++] = (long) levels[h][i] << 6 | h;
+        }
+        Arrays.sort(weighted);
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (long value : weighted) {
+            seen += 1L << (value & 63);
+            if (seen >= rank)
+                return (int) (value >> 6);
+        }
+        return (int) (weighted[kept - 1] >> 6);
+    }
+
+    private void append(int level, int value) {
+        if (level >= levels.length) {
+            int height = levels.length;
+            levels = Arrays.copyOf(levels, level + 1);
+            sizes = Arrays.copyOf(sizes, level + 1);
+            for (int h = height; h <= level; h++)
+                levels[h] = new int[k];
+        }
+        if (sizes[level] == levels[level].length)
+            levels[level] = Arrays.copyOf(levels[level], levels[level].length * 2);
+        levels[level][sizes[level]++] = value;
+    }
+
+    /**
+     * Compact every full level, from the bottom up
+     */
+    private void compact() {
+        for (int h = 0; h < levels.length; h++) {
+            if (sizes[h] < k)
+                continue;
+            int[] level = levels[h];
+            //an odd value stays on the level
+            int pairs = sizes[h] / 2;
+            Arrays.sort(level, 0, pairs * 2);
+            int offset = nextBit();
+            for (int i = 0; i < pairs; i++)
+                append(h + 1, level[2 * i + offset]);
+            if (sizes[h] % 2 == 1)
+                level[0] = level[sizes[h] - 1];
+            sizes[h] %= 2;
+        }
+    }
+
+    //xorshift, enough for the compaction offsets
+    private int nextBit() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return (int) (seed >>> 63);
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(k);
+        out.writeLong(count);
+        out.writeLong(seed);
+        out.writeInt(levels.length);
+        for (int h = 0; h < levels.length; h++) {
+            out.writeInt(sizes[h]);
+            for (int i = 0; i < sizes[h]; i++)
+                out.writeInt(levels[h][i]);
+        }
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        k = in.readInt();
+        count = in.readLong();
+        seed = in.readLong();
+        int height = in.readInt();
+        levels = new int[height][];
+        sizes = new int[height];
+        for (int h = 0; h < height; h++) {
+            sizes[h] = in.readInt();
+            levels[h] = new int[Math.max(k, sizes[h])];
+            for (int i = 0; i < sizes[h]; i++)
+                levels[h][i] = in.readInt();
+        }
+    }
+}
@@ -0,0 +1,365 @@
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.OutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.LazyOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+import org.example.DroughtDetector;
+import org.example.IntIntHashMap;
+import org.example.JobFormats;
+import org.example.JobOptions;
+import org.example.LocalRainfallEngine;
+import org.example.MeteredMapper;
+import org.example.MeteredReducer;
+import org.example.RainfallAggregates;
+import org.example.RainfallRecord;
+import org.example.RunReport;
+import org.example.SeasonKey;
+import org.example.StatisticKey;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A class represent a map reduce process that computes the min max, seasons and drought statistics
+ * in a single scan of the input, each statistic family is written to its own named output
+ */
+public class RainFallCombinedStatistics {
+
+    static final String MIN_MAX = "minmax";
+    static final String SEASONS = "seasons";
+    static final String DROUGHT = "drought";
+
+    /**
+     * A mapper class, parses each row once and writes the partial aggregates of every statistic
+     */
+    public static class MyMapper extends
+            MeteredMapper<LongWritable, Writable, StatisticKey, IntWritable> {
+        //flush the partial sums when the maps hold this many entries
+        static final int FLUSH_SIZE = 1 << 16;
+        private RainfallRecord record = new RainfallRecord();
+        private IntIntHashMap yearSums = new IntIntHashMap(256);
+        private IntIntHashMap seasonSums = new IntIntHashMap(1024);
+        private StatisticKey statisticKey = new StatisticKey();
+        private IntWritable statisticValue = new IntWritable();
+        private int max = Integer.MIN_VALUE;//min value in order to find the maximum
+        private int min = Integer.MAX_VALUE;//max value in order to find the minimum
+        private int maxYear;
+        private int maxMonth;
+        private int minYear;
+        private int minMonth;
+
+        /**
+         * A map function in order to map (key, value) pairs according to the process
+         * @param key - the key-in value
+         * @param value - the value-in value, a parsed data file line or a binary record
+         * @param context - the (key-out, value-out) pairs
+         * @throws IOException
+         * @throws InterruptedException
+         */
+        public void map(LongWritable key, Writable value, Context context)
+                throws IOException, InterruptedException {
+            RainfallRecord row = parse(value, record);
+            //skip malformed lines
+            if (row == null)
+                return;
+            //a year out of the range of the packed season key would wrap into another year
+            if (!SeasonKey.fits(row.getYear())) {
+                reject();
+                return;
+            }
+
+            int year = row.getYear();
+            for (int i = 0; i < RainfallRecord.MONTHS; i++) {
+                int rainValue = row.getMonth(i);
+                yearSums.add(year, rainValue);
+                seasonSums.add(SeasonKey.pack(year, SeasonKey.seasonOf(i)), rainValue);
+
+                //find the month/year with the max rain fall value
+                if (rainValue > max) {
+                    max = rainValue;
+                    maxYear = year;
+                    maxMonth = i + 1;
+                }
+
+                //find the month/year with the min rain fall value
+                if (rainValue < min) {
+                    min = rainValue;
+                    minYear = year;
+                    minMonth = i + 1;
+                }
+            }
+
+            //make a pair of (year, yearAverage) for the drought statistics
+            write(context, StatisticKey.YEAR_AVERAGE, year, 0, row.getAverage());
+
+            if (yearSums.size() + seasonSums.size() >= FLUSH_SIZE)
+                flush(context);
+        }
+
+        /**
+         * A cleanup function executes after the map process
+         * @param context - the (key-out, value-out) pairs
+         * @throws IOException
+         * @throws InterruptedException
+         */
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            flush(context);
+            if (max != Integer.MIN_VALUE) {
+                write(context, StatisticKey.MAX_MONTH, maxYear, maxMonth, max);
+                write(context, StatisticKey.MIN_MONTH, minYear, minMonth, min);
+            }
+        }
+
+        private void flush(Context context) throws IOException, InterruptedException {
+            for (int slot = 0; slot < yearSums.capacity(); slot++) {
+                if (yearSums.isUsed(slot))
+                    write(context, StatisticKey.YEAR_TOTAL, yearSums.keyAt(slot), 0, yearSums.valueAt(slot));
+            }
+            SeasonKey seasonKey = new SeasonKey();
+            for (int slot = 0; slot < seasonSums.capacity(); slot++) {
+                if (seasonSums.isUsed(slot)) {
+                    seasonKey.unpack(seasonSums.keyAt(slot));
+                    write(context, StatisticKey.SEASON_TOTAL, seasonKey.getYear(), seasonKey.getSeason(),
+                            seasonSums.valueAt(slot));
+                }
+            }
+            yearSums.clear();
+            seasonSums.clear();
+        }
+
+        private void write(Context context, byte type, int year, int detail, int value)
+                throws IOException, InterruptedException {
+            statisticKey.set(type, year, (byte) detail);
+            statisticValue.set(value);
+            emit(context, statisticKey, statisticValue);
+        }
+    }
+
+    /**
+     * A reducer class, the keys arrive grouped by statistic type and sorted by year
+     */
+    public static class MyReducer extends
+            MeteredReducer<StatisticKey, IntWritable, Text, Writable> {
+        private MultipleOutputs<Text, Writable> outputs;
+        private Text resultKey = new Text();
+        private IntWritable resultValue = new IntWritable();
+        //min max statistics
+        private int maxYearVal = Integer.MIN_VALUE;
+        private int minYearVal = Integer.MAX_VALUE;
+        private int maxYear;
+        private int minYear;
+        private String maxMonth;
+        private String minMonth;
+        private int maxMonthVal = Integer.MIN_VALUE;
+        private int minMonthVal = Integer.MAX_VALUE;
+        //seasons statistics
+        private int maxSeasonVal = Integer.MIN_VALUE;
+        private int minSeasonVal = Integer.MAX_VALUE;
+        private String maxSeasonYear;
+        private String minSeasonYear;
+        //drought statistics, the years in ascending order
+        private int[] years = new int[64];
+        private int[] averages = new int[64];
+        private int yearCount;
+        private long averageSum;
+        private long rowCount;
+
+        @Override
+        protected void setup(Context context) {
+            outputs = new MultipleOutputs<>(context);
+        }
+
+        /**
+         * A reduce function in order to aggregate the (key, value) pairs
+         * @param key - the key-in value
+         * @param values - the values-out values
+         * @param context - the (key-out, value-out) pairs
+         * @throws IOException
+         * @throws InterruptedException
+         */
+        public void reduce(StatisticKey key, Iterable<IntWritable> values,
+                           Context context) throws IOException, InterruptedException {
+            switch (key.getType()) {
+                case StatisticKey.YEAR_TOTAL:
+                    reduceYearTotal(key, sum(values));
+                    break;
+                case StatisticKey.SEASON_TOTAL:
+                    reduceSeasonTotal(key, sum(values));
+                    break;
+                case StatisticKey.YEAR_AVERAGE:
+                    reduceYearAverage(key, values);
+                    break;
+                case StatisticKey.MAX_MONTH:
+                    //keep the greatest month of all the splits
+                    for (IntWritable val : values) {
+                        if (val.get() > maxMonthVal) {
+                            maxMonthVal = val.get();
+                            maxMonth = key.getDetail() + "/" + key.getYear();
+                        }
+                    }
+                    break;
+                case StatisticKey.MIN_MONTH:
+                    //keep the lowest month of all the splits
+                    for (IntWritable val : values) {
+                        if (val.get() < minMonthVal) {
+                            minMonthVal = val.get();
+                            minMonth = key.getDetail() + "/" + key.getYear();
+                        }
+                    }
+                    break;
+                default:
+                    throw new IOException("Unknown statistic type " + key.getType());
+            }
+        }
+
+        private void write(String name, Text key, Writable value) throws IOException, InterruptedException {
+            outputs.write(name, key, value);
+            emitted(key, value);
+        }
+
+        private static int sum(Iterable<IntWritable> values) {
+            int sum = 0;
+            for (IntWritable val : values)
+                sum += val.get();
+            return sum;
+        }
+
+        private void reduceYearTotal(StatisticKey key, int sum) throws IOException, InterruptedException {
+            //make a pair of (year, totalRainfall)
+            resultKey.set(Integer.toString(key.getYear()));
+            resultValue.set(sum);
+            write(MIN_MAX, resultKey, resultValue);
+
+            //find the year with the max rain fall value
+            if (sum > maxYearVal) {
+                maxYearVal = sum;
+                maxYear = key.getYear();
+            }
+
+            //find the year with the min rain fall value
+            if (sum < minYearVal) {
+                minYearVal = sum;
+                minYear = key.getYear();
+            }
+        }
+
+        private void reduceSeasonTotal(StatisticKey key, int sum) throws IOException, InterruptedException {
+            //make a pair of (year-season, totalRainfall)
+            String seasonYear = key.getYear() + "-" + SeasonKey.nameOf(key.getDetail());
+            resultKey.set(seasonYear);
+            resultValue.set(sum);
+            write(SEASONS, resultKey, resultValue);
+
+            //find the year-season with the max rain fall value
+            if (sum > maxSeasonVal) {
+                maxSeasonVal = sum;
+                maxSeasonYear = seasonYear;
+            }
+
+            //find the year-season with the min rain fall value
+            if (sum < minSeasonVal) {
+                minSeasonVal = sum;
+                minSeasonYear = seasonYear;
+            }
+        }
+
+        private void reduceYearAverage(StatisticKey key, Iterable<IntWritable> values) {
+            //every row counts in the multi annual average, a repeated year keeps its last average
+            int avg = 0;
+            for (IntWritable val : values) {
+                avg = val.get();
+                averageSum += avg;
+                rowCount++;
+            }
+            if (yearCount == years.length) {
+                years = Arrays.copyOf(years, yearCount * 2);
+                averages = Arrays.copyOf(averages, yearCount * 2);
+            }
+            years[yearCount] = key.getYear();
+            averages[yearCount] = avg;
+            yearCount++;
+        }
+
+        /**
+         * A cleanup function executes after the reduce process
+         * @param context - the (key-out, value-out) pairs
+         * @throws IOException
+         * @throws InterruptedException
+         */
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            if (yearCount > 0) {
+                write(MIN_MAX, new Text("The month and year in which the greatest amount of precipitation fell are " + maxMonth +
+                        ", the amount is "), new IntWritable(maxMonthVal));
+                write(MIN_MAX, new Text("The month and year in which the lowest amount of precipitation fell are " + minMonth +
+                        ", the amount is "), new IntWritable(minMonthVal));
+                write(MIN_MAX, new Text("The year in which the biggest amount of precipitation fell is " + maxYear +
+                        ", the amount is "), new IntWritable(maxYearVal));
+                write(MIN_MAX, new Text("The year in which the smallest amount of precipitation fell is " + minYear +
+                        ", the amount is "), new IntWritable(minYearVal));
+                write(SEASONS, new Text("The season and year in which the largest precipitation fell are " + maxSeasonYear +
+                        ", the amount is "), new IntWritable(maxSeasonVal));
+                write(SEASONS, new Text("The season and year in which the smallest precipitation fell are " + minSeasonYear +
+                        ", the amount is "), new IntWritable(minSeasonVal));
+
+                //calc multi annual average and detect the droughts
+                int multiAnnualAvg = (int) (averageSum / rowCount);
+                write(DROUGHT, new Text(DroughtDetector.averageLine(multiAnnualAvg)), NullWritable.get());
+                for (String drought : DroughtDetector.detect(years, averages, yearCount, multiAnnualAvg))
+                    write(DROUGHT, new Text(drought), NullWritable.get());
+            }
+            outputs.close();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        JobOptions options = JobOptions.parse(args);
+        Configuration conf = new Configuration();
+        //--engine local runs in process without a job, --engine auto does so for small inputs
+        RunReport report = new RunReport(RainFallCombinedStatistics.class.getName());
+        if (LocalRainfallEngine.isLocal(options, conf)) {
+            long start = System.nanoTime();
+            LocalRainfallEngine engine = new LocalRainfallEngine(conf);
+            RainfallAggregates aggregates = engine.aggregate(new Path(options.getInput()), options.has("--binary"));
+            engine.write(new Path(options.getOutput()),
+                    new String[]{MIN_MAX + "-r-00000", SEASONS + "-r-00000", DROUGHT + "-r-00000"},
+                    Arrays.asList(aggregates.minMaxLines(), aggregates.seasonsLines(), aggregates.droughtLines()));
+            report.phase("local", System.nanoTime() - start);
+            engine.report(report);
+            report.write(options, conf);
+            System.exit(0);
+        }
+        Job job = Job.getInstance(conf, "Rainfall combined statistics");
+        job.setJarByClass(RainFallCombinedStatistics.class);
+        job.setMapOutputKeyClass(StatisticKey.class);
+        job.setMapOutputValueClass(IntWritable.class);
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(IntWritable.class);
+        job.setMapperClass(MyMapper.class);
+        job.setReducerClass(MyReducer.class);
+        job.setNumReduceTasks(1);
+        //every statistic family is written to its own files: minmax-r-*, seasons-r-* and drought-r-*
+        @SuppressWarnings("rawtypes")
+        Class<? extends OutputFormat> format = JobFormats.configureOutput(job, options);
+        LazyOutputFormat.setOutputFormatClass(job, format);
+        MultipleOutputs.addNamedOutput(job, MIN_MAX, format, Text.class, IntWritable.class);
+        MultipleOutputs.addNamedOutput(job, SEASONS, format, Text.class, IntWritable.class);
+        MultipleOutputs.addNamedOutput(job, DROUGHT, format, Text.class, NullWritable.class);
+        JobFormats.configureInput(job, options);
+        JobFormats.configureMapOutput(job, options);
+        boolean status = report.run(job);
+        report.write(options, conf);
+        if (status) {
+            System.exit(0);
+        } else {
+            System.exit(1);
+        }
+    }
+}
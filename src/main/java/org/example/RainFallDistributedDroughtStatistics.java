@@ -0,0 +1,365 @@
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Partitioner;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputCommitter;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.NullOutputFormat;
+import org.example.DroughtDetector;
+import org.example.JobFormats;
+import org.example.JobOptions;
+import org.example.MeteredMapper;
+import org.example.MeteredReducer;
+import org.example.RainfallRecord;
+import org.example.RunReport;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * A class represent the distributed drought detection, a chain of map reduce processes:
+ * the first pass computes the multi annual average and the year range through counters,
+ * the second pass range partitions the years across the reducers which detect the droughts locally,
+ * the droughts crossing a partition boundary are stitched by the driver
+ */
+public class RainFallDistributedDroughtStatistics {
+
+    static final String AVERAGE = "rainfall.drought.average";
+    static final String MIN_YEAR = "rainfall.drought.min.year";
+    static final String MAX_YEAR = "rainfall.drought.max.year";
+
+    /**
+     * The counters of the first pass
+     */
+    enum Totals {
+        AVERAGE_SUM, YEARS, MIN_YEAR, MAX_YEAR
+    }
+
+    /**
+     * A mapper class of the first pass, sums the year averages and finds the year range of the split
+     */
+    public static class AverageMapper extends
+            MeteredMapper<LongWritable, Writable, NullWritable, IntWritable> {
+        private RainfallRecord record = new RainfallRecord();
+        private long sum;
+        private long count;
+        private int minYear = Integer.MAX_VALUE;
+        private int maxYear = Integer.MIN_VALUE;
+
+        public void map(LongWritable key, Writable value, Context context) {
+            RainfallRecord row = parse(value, record);
+            //skip malformed lines
+            if (row == null)
+                return;
+            sum += row.getAverage();
+            count++;
+            minYear = Math.min(minYear, row.getYear());
+            maxYear = Math.max(maxYear, row.getYear());
+        }
+
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            if (count == 0)
+                return;
+            context.getCounter(Totals.AVERAGE_SUM).increment(sum);
+            context.getCounter(Totals.YEARS).increment(count);
+            //the year range of the split, the reducer keeps the overall range
+            emit(context, NullWritable.get(), new IntWritable(minYear));
+            emit(context, NullWritable.get(), new IntWritable(maxYear));
+        }
+    }
+
+    /**
+     * A reducer class of the first pass, publishes the year range as counters
+     */
+    public static class YearRangeReducer extends
+            MeteredReducer<NullWritable, IntWritable, NullWritable, NullWritable> {
+
+        public void reduce(NullWritable key, Iterable<IntWritable> values, Context context) {
+            int minYear = Integer.MAX_VALUE;
+            int maxYear = Integer.MIN_VALUE;
+            for (IntWritable val : values) {
+                minYear = Math.min(minYear, val.get());
+                maxYear = Math.max(maxYear, val.get());
+            }
+            context.getCounter(Totals.MIN_YEAR).increment(minYear);
+            context.getCounter(Totals.MAX_YEAR).increment(maxYear);
+        }
+    }
+
+    /**
+     * A mapper class of the second pass, makes a pair of (year, yearAverage)
+     */
+    public static class YearMapper extends
+            MeteredMapper<LongWritable, Writable, IntWritable, IntWritable> {
+        private RainfallRecord record = new RainfallRecord();
+        private IntWritable year = new IntWritable();
+        private IntWritable average = new IntWritable();
+
+        public void map(LongWritable key, Writable value, Context context)
+                throws IOException, InterruptedException {
+            RainfallRecord row = parse(value, record);
+            //skip malformed lines
+            if (row == null)
+                return;
+            year.set(row.getYear());
+            average.set(row.getAverage());
+            emit(context, year, average);
+        }
+    }
+
+    /**
+     * A partitioner class, splits the year range into contiguous ranges, one per reducer
+     */
+    public static class YearRangePartitioner extends Partitioner<IntWritable, IntWritable>
+            implements Configurable {
+        private Configuration conf;
+        private int minYear;
+        private int maxYear;
+
+        @Override
+        public void setConf(Configuration conf) {
+            this.conf = conf;
+            minYear = conf.getInt(MIN_YEAR, 0);
+            maxYear = conf.getInt(MAX_YEAR, 0);
+        }
+
+        @Override
+        public Configuration getConf() {
+            return conf;
+        }
+
+        @Override
+        public int getPartition(IntWritable key, IntWritable value, int numPartitions) {
+            long span = (long) maxYear - minYear + 1;
+            long partition = ((long) key.get() - minYear) * numPartitions / span;
+            return (int) Math.max(0, Math.min(numPartitions - 1, partition));
+        }
+    }
+
+    /**
+     * A reducer class of the second pass, gets its years in ascending order and writes
+     * the below average run at the start of its range ("lead", or "open" if no year closes it),
+     * the complete droughts inside its range ("run") and the run still open at the end ("tail")
+     */
+    public static class RunReducer extends
+            MeteredReducer<IntWritable, IntWritable, Text, Text> {
+        private int multiAnnualAvg;
+        private boolean closed;
+        private int count;
+        private StringBuilder run = new StringBuilder();
+
+        @Override
+        protected void setup(Context context) {
+            multiAnnualAvg = context.getConfiguration().getInt(AVERAGE, 0);
+        }
+
+        public void reduce(IntWritable key, Iterable<IntWritable> values, Context context)
+                throws IOException, InterruptedException {
+            //a repeated year keeps its last average, like the single reducer
+            int avg = 0;
+            for (IntWritable val : values)
+                avg = val.get();
+
+            if (avg < multiAnnualAvg) {
+                if (count > 0)
+                    run.append(',');
+                run.append(key.get()).append(' ').append(avg);
+                count++;
+                return;
+            }
+            //the first year that is not below the average closes the leading run
+            if (!closed) {
+                emit(context, new Text("lead"), new Text(run.toString()));
+                closed = true;
+            } else if (count >= DroughtDetector.MIN_DROUGHT_YEARS) {
+                emit(context, new Text("run"), new Text(run.toString()));
+            }
+            run.setLength(0);
+            count = 0;
+        }
+
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            if (!closed) {
+                if (count > 0)
+                    emit(context, new Text("open"), new Text(run.toString()));
+            } else {
+                emit(context, new Text("tail"), new Text(run.toString()));
+            }
+        }
+    }
+
+    /**
+     * Run the distributed drought detection
+     * @param options - the job options, --reducers sets the number of reducers
+     * @param report - gets the time and the counters of every job
+     * @return true if the jobs succeeded
+     */
+    public static boolean run(JobOptions options, RunReport report) throws Exception {
+        //the driver writes the merged text result itself, not through an output format
+        if (options.has("--compress") || options.has("--sequence-output") || options.has("--structured"))
+            throw new IllegalArgumentException("--compress, --sequence-output and --structured need the single reducer"
+                    + " drought job");
+        Path output = new Path(options.getOutput());
+        //no output format checks the output directory, so it is checked before the first pass like the jobs do
+        FileSystem fs = output.getFileSystem(new Configuration());
+        if (fs.exists(output))
+            throw new IOException("Output directory " + output + " already exists");
+
+        //first pass: the multi annual average and the year range
+        Job totals = totals(options, report);
+        if (totals == null)
+            return false;
+        long years = totals.getCounters().findCounter(Totals.YEARS).getValue();
+        if (years == 0) {
+            //no rows, nothing to detect
+            fs.mkdirs(output);
+            fs.create(new Path(output, "part-r-00000")).close();
+            fs.create(new Path(output, FileOutputCommitter.SUCCEEDED_FILE_NAME)).close();
+            return true;
+        }
+        int multiAnnualAvg = (int) (totals.getCounters().findCounter(Totals.AVERAGE_SUM).getValue() / years);
+
+        //second pass: detect the droughts of each year range
+        Configuration conf = new Configuration();
+        conf.setInt(AVERAGE, multiAnnualAvg);
+        conf.setInt(MIN_YEAR, (int) totals.getCounters().findCounter(Totals.MIN_YEAR).getValue());
+        conf.setInt(MAX_YEAR, (int) totals.getCounters().findCounter(Totals.MAX_YEAR).getValue());
+        Job runs = Job.getInstance(conf, "Rainfall drought runs");
+        runs.setJarByClass(RainFallDistributedDroughtStatistics.class);
+        JobFormats.configureInput(runs, options);
+        JobFormats.configureMapOutput(runs, options);
+        runs.setMapperClass(YearMapper.class);
+        runs.setPartitionerClass(YearRangePartitioner.class);
+        runs.setReducerClass(RunReducer.class);
+        runs.setMapOutputKeyClass(IntWritable.class);
+        runs.setMapOutputValueClass(IntWritable.class);
+        runs.setOutputKeyClass(Text.class);
+        runs.setOutputValueClass(Text.class);
+        runs.setNumReduceTasks(options.getInt("--reducers", 4));
+        //the runs are written next to the output under a hidden name and deleted after the merge
+        Path qualified = fs.makeQualified(output);
+        Path runsPath = new Path(qualified.getParent(), "." + qualified.getName() + "." + UUID.randomUUID() + ".runs");
+        FileOutputFormat.setOutputPath(runs, runsPath);
+        try {
+            if (!report.run(runs))
+                return false;
+
+            //final merge: stitch the runs of consecutive partitions
+            long start = System.nanoTime();
+            merge(fs, runsPath, multiAnnualAvg, new Path(output, "part-r-00000"));
+            fs.create(new Path(output, FileOutputCommitter.SUCCEEDED_FILE_NAME)).close();
+            report.phase("merge", System.nanoTime() - start);
+            return true;
+        } finally {
+            fs.delete(runsPath, true);
+        }
+    }
+
+    /**
+     * Run the first pass, the Totals counters hold the multi annual average and the year range
+     * @return the completed job or null if it failed
+     */
+    static Job totals(JobOptions options, RunReport report) throws Exception {
+        Job totals = Job.getInstance(new Configuration(), "Rainfall drought totals");
+        totals.setJarByClass(RainFallDistributedDroughtStatistics.class);
+        JobFormats.configureInput(totals, options);
+        JobFormats.configureMapOutput(totals, options);
+        totals.setMapperClass(AverageMapper.class);
+        totals.setReducerClass(YearRangeReducer.class);
+        totals.setMapOutputKeyClass(NullWritable.class);
+        totals.setMapOutputValueClass(IntWritable.class);
+        totals.setNumReduceTasks(1);
+        totals.setOutputFormatClass(NullOutputFormat.class);
+        return report.run(totals) ? totals : null;
+    }
+
+    /**
+     * Merge the partition runs in partition order and write the droughts like the single reducer does
+     */
+    static void merge(FileSystem fs, Path runsPath, int multiAnnualAvg, Path result) throws IOException {
+        FileStatus[] parts = fs.globStatus(new Path(runsPath, "part-r-*"));
+        Arrays.sort(parts);
+        try (FSDataOutputStream out = fs.create(result)) {
+            out.write((DroughtDetector.averageLine(multiAnnualAvg) + "\n").getBytes(StandardCharsets.UTF_8));
+            //the run still open at the end of the previous partitions
+            StringBuilder open = new StringBuilder();
+            for (FileStatus part : parts) {
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(fs.open(part.getPath()), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        int tab = line.indexOf('\t');
+                        String type = tab < 0 ? line : line.substring(0, tab);
+                        String years = tab < 0 ? "" : line.substring(tab + 1);
+                        if (type.equals("open")) {
+                            append(open, years);
+                        } else if (type.equals("lead")) {
+                            append(open, years);
+                            writeDrought(out, open.toString());
+                            open.setLength(0);
+                        } else if (type.equals("run")) {
+                            writeDrought(out, years);
+                        } else if (type.equals("tail")) {
+                            append(open, years);
+                        }
+                    }
+                }
+            }
+            //like the single reducer, a run still open at the last year is not reported
+        }
+    }
+
+    private static void append(StringBuilder run, String years) {
+        if (years.isEmpty())
+            return;
+        if (run.length() > 0)
+            run.append(',');
+        run.append(years);
+    }
+
+    private static void writeDrought(FSDataOutputStream out, String run) throws IOException {
+        if (run.isEmpty())
+            return;
+        String[] yearAverages = run.split(",");
+        //only MIN_DROUGHT_YEARS or more consecutive years below the multi annual average are a drought
+        if (yearAverages.length < DroughtDetector.MIN_DROUGHT_YEARS)
+            return;
+        int[] years = new int[yearAverages.length];
+        int[] averages = new int[yearAverages.length];
+        for (int i = 0; i < yearAverages.length; i++) {
+            String[] yearAverage = yearAverages[i].split(" ");
+            years[i] = Integer.parseInt(yearAverage[0]);
+            averages[i] = Integer.parseInt(yearAverage[1]);
+        }
+        out.write((DroughtDetector.droughtLine(years, averages, 0, years.length) + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static void main(String[] args) throws Exception {
+        JobOptions options = JobOptions.parse(args);
+        RunReport report = new RunReport(RainFallDistributedDroughtStatistics.class.getName());
+        boolean status = run(options, report);
+        report.setSucceeded(status);
+        report.write(options, new Configuration());
+        if (status) {
+            System.exit(0);
+        } else {
+            System.exit(1);
+        }
+    }
+}
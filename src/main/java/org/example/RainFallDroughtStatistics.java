@@ -2,14 +2,29 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapreduce.Job;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
-import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
-import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.example.DroughtDetector;
+import org.example.DroughtRule;
+import org.example.JobFormats;
+import org.example.JobOptions;
+import org.example.LocalRainfallEngine;
+import org.example.MeteredMapper;
+import org.example.MeteredReducer;
+import org.example.RainfallAggregates;
+import org.example.RainfallRecord;
+import org.example.RainfallResult;
+import org.example.ResultCache;
+import org.example.RunReport;
+import org.example.YearStats;
+import org.example.YearTable;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
@@ -17,54 +32,60 @@ import java.util.*;
  */
 public class RainFallDroughtStatistics {
 
+    //the drought rules of the reducer, "baseline:percent:minYears" separated by commas
+    public static final String RULES = "rainfall.drought.rules";
+
     /**
      * A mapper class
      */
     public static class MyMapper extends
-            Mapper<LongWritable, Text, Text, Text> {
+            MeteredMapper<LongWritable, Writable, Text, YearStats> {
 
-        private String year;
+        private static final Text YEAR_AVERAGE = new Text("yearAverage");
+        private RainfallRecord record = new RainfallRecord();
+        private YearStats yearStats = new YearStats();
 
         /**
          * A map function in order to map (key, value) pairs according to the process
          * @param key - the key-in value
-         * @param value - the value-in value
+         * @param value - the value-in value, a parsed data file line or a binary record
          * @param context - the (key-out, value-out) pairs
          * @throws IOException
          * @throws InterruptedException
          */
-        public void map(LongWritable key, Text value, Context context)
+        public void map(LongWritable key, Writable value, Context context)
                 throws IOException, InterruptedException {
-            StringTokenizer tokenizer = new StringTokenizer(value.toString());
-            //the sum of rain fall amount in a specific year
-            int sum = 0;
-
-            //extract the year from the line
-            if (tokenizer.hasMoreTokens())
-                year = tokenizer.nextToken();
-
-            for (int i = 0; i < 12; i++) {
-                //extract the rain fall value from the line
-                if (tokenizer.hasMoreTokens())
-                    sum += Integer.parseInt(tokenizer.nextToken());//add the value to sum
-            }
+            RainfallRecord row = parse(value, record);
+            //skip malformed lines
+            if (row == null)
+                return;
 
-            //extract the average of the year
-            //make a pair of (yearAverage, year-avg-sum)
-            if (tokenizer.hasMoreTokens())
-                context.write(new Text("yearAverage"), new Text(year + "-" + tokenizer.nextToken() + "-" + sum));
+            //make a pair of (yearAverage, (year, avg, sum))
+            yearStats.set(row.getYear(), row.getAverage(), row.getSum());
+            emit(context, YEAR_AVERAGE, yearStats);
         }
     }
 
     /**
-     * A reducer class
+     * A reducer class, evaluates every drought rule in a single pass over a year table
      */
     public static class MyReducer extends
-            Reducer<Text, Text, Text, IntWritable> {
+            MeteredReducer<Text, YearStats, Writable, NullWritable> {
 
-        Map<String, Integer> yearsAverage = new TreeMap<>();
-        Map<String, Integer> yearsAmount = new HashMap<>();
-        private int multiAnnualAvg;
+        private DroughtRule[] rules;
+        //the lines are labeled with their rule unless the rules are not configured
+        private boolean labeled;
+        //--structured writes typed results instead of the lines
+        private boolean structured;
+        private final RainfallResult result = new RainfallResult();
+
+        @Override
+        protected void setup(Context context) {
+            String specs = context.getConfiguration().get(RULES);
+            rules = DroughtRule.parseAll(specs == null ? DroughtRule.DEFAULT : specs);
+            labeled = specs != null;
+            structured = context.getConfiguration().getBoolean(JobFormats.STRUCTURED, false);
+        }
 
         /**
          *  A reduce function in order to aggregate the (key, value) pairs
@@ -74,77 +95,213 @@ public class RainFallDroughtStatistics {
          * @throws IOException
          * @throws InterruptedException
          */
-        public void reduce(Text key, Iterable<Text> values,
+        public void reduce(Text key, Iterable<YearStats> values,
                            Context context) throws IOException, InterruptedException {
-            //sum and count in  order al calc multi annual average
-            int sum = 0;
+            //sum and count in order to calc the multi annual average
+            long sum = 0;
             int count = 0;
-            //aggregate values
-            for (Text val : values) {
-                //extract info from each value by parsing using split
-                String[] tokens = val.toString().split("-");
-                String year = tokens[0];
-                int avg = Integer.parseInt(tokens[1]);
-                int amount = Integer.parseInt(tokens[2]);
-                //save info sorted in tree map, in order to detect droughts later
-                yearsAverage.put(year, avg);
-                yearsAmount.put(year, amount);
-                sum += avg;
-                count++; //increment years counter
+            YearTable table = new YearTable();
+            for (YearStats val : values) {
+                //a repeated year keeps its last average
+                table.add(val.getYear(), val.getAverage());
+                sum += val.getAverage();
+                count++;
+            }
+            if (structured) {
+                emitResults(context, table, (int) (sum / count));
+                return;
             }
-            //calc multi annual average
-            multiAnnualAvg = sum / count;
+            List<List<String>> lines = DroughtDetector.detect(table, rules, (int) (sum / count));
+            for (String line : labeled ? DroughtDetector.label(rules, lines) : lines.get(0))
+                emit(context, new Text(line), NullWritable.get());
+        }
 
-            count = 0;
-            //sorted set in order to hold the drought years
-            Set<String> years = new TreeSet<>();
-            //write the multi annual average
-            context.write(new Text("The multi annual average is " + multiAnnualAvg), null);
-            //detect drought years
-            for (Map.Entry<String, Integer> entry : yearsAverage.entrySet()) {
-                String year = entry.getKey();
-                //If the annual average is lower than the multi annual average
-                //add this year to the set, increment the counter
-                if (entry.getValue() < multiAnnualAvg) {
-                    years.add(year);
-                    count++;
-                } else {
-                    //If the annual average is not lower than the multi annual average
-                    //only if the count >= 3, we detect those years as drought
-                    if (count >= 3) {
-                        StringBuilder stringBuilder = new StringBuilder("[");
-                        int index = 0;
-                        for (String y : years)
-                        {
-                            stringBuilder.append(y).append(" - ").append(yearsAverage.get(y));
-                            index++;
-                            if(index != years.size())
-                                stringBuilder.append(", ");
-                        }
-                        stringBuilder.append("]");
-                        //write the result
-                        context.write(new Text("The following years detected as drought " + stringBuilder.toString()), null);
-                        stringBuilder.setLength(0);
-                    }
-                    //clear
-                    years.clear();
-                    count = 0;
+        /**
+         * Write the baseline and the droughts of every rule as typed results, in the order of the lines
+         */
+        private void emitResults(Context context, YearTable table, int mean) throws IOException, InterruptedException {
+            int[] baselines = new int[rules.length];
+            List<List<int[]>> runs = DroughtDetector.runs(table, rules, mean, baselines);
+            for (int r = 0; r < rules.length; r++) {
+                String rule = labeled ? rules[r].toString() : "";
+                emit(context, result.setBaseline(rules[r].isMedian() ? RainfallResult.Statistic.MULTI_ANNUAL_MEDIAN
+                        : RainfallResult.Statistic.MULTI_ANNUAL_AVERAGE, rule, baselines[r]), NullWritable.get());
+                for (int[] run : runs.get(r))
+                    emit(context, result.setDrought(rule, table.getYears(), table.getAverages(), run[0], run[1]),
+                            NullWritable.get());
+            }
+        }
+    }
+
+    /**
+     * A reducer class of the streaming drought detection, gets one year per reduce call in ascending order
+     * and keeps only the run of below average years that is still open, the multi annual average is known
+     * before the first year
+     */
+    public static class StreamingReducer extends
+            MeteredReducer<IntWritable, IntWritable, Text, NullWritable> {
+        private int multiAnnualAvg;
+        private boolean started;
+        //the open run, it grows with the run length only
+        private int[] runYears = new int[16];
+        private int[] runAverages = new int[16];
+        private int count;
+
+        @Override
+        protected void setup(Context context) {
+            multiAnnualAvg = context.getConfiguration().getInt(RainFallDistributedDroughtStatistics.AVERAGE, 0);
+        }
+
+        public void reduce(IntWritable key, Iterable<IntWritable> values, Context context)
+                throws IOException, InterruptedException {
+            //the average line comes first, like the single reducer there is no output without rows
+            if (!started) {
+                emit(context, new Text(DroughtDetector.averageLine(multiAnnualAvg)), NullWritable.get());
+                started = true;
+            }
+            //a repeated year keeps its last average, like the single reducer
+            int avg = 0;
+            for (IntWritable val : values)
+                avg = val.get();
+
+            if (avg < multiAnnualAvg) {
+                if (count == runYears.length) {
+                    runYears = Arrays.copyOf(runYears, count * 2);
+                    runAverages = Arrays.copyOf(runAverages, count * 2);
                 }
+                runYears[count] = key.get();
+                runAverages[count] = avg;
+                count++;
+                return;
             }
+            //a year that is not below the average closes the run, a run still open at the last year is not reported
+            if (count >= DroughtDetector.MIN_DROUGHT_YEARS)
+                emit(context, new Text(DroughtDetector.droughtLine(runYears, runAverages, 0, count)), NullWritable.get());
+            count = 0;
+        }
+    }
+
+    /**
+     * Run the streaming drought detection: the multi annual average is taken from "--average N",
+     * from the first line of "--average-file path" (e.g. a previous drought output) or from a first pass,
+     * then the years reach a single reducer sorted by the shuffle
+     * @param report - gets the time and the counters of every job
+     * @return true if the jobs succeeded
+     */
+    static boolean runStreaming(JobOptions options, RunReport report) throws Exception {
+        Configuration conf = new Configuration();
+        int multiAnnualAvg;
+        if (options.has("--average")) {
+            multiAnnualAvg = options.getInt("--average", 0);
+        } else if (options.has("--average-file")) {
+            multiAnnualAvg = readAverage(new Path(options.get("--average-file", null)), conf);
+        } else {
+            Job totals = RainFallDistributedDroughtStatistics.totals(options, report);
+            if (totals == null)
+                return false;
+            long years = totals.getCounters().findCounter(RainFallDistributedDroughtStatistics.Totals.YEARS).getValue();
+            long sum = totals.getCounters().findCounter(RainFallDistributedDroughtStatistics.Totals.AVERAGE_SUM).getValue();
+            multiAnnualAvg = years == 0 ? 0 : (int) (sum / years);
+        }
+        conf.setInt(RainFallDistributedDroughtStatistics.AVERAGE, multiAnnualAvg);
+        Job job = Job.getInstance(conf, "Rainfall streaming drought statistics");
+        job.setJarByClass(RainFallDroughtStatistics.class);
+        JobFormats.configureInput(job, options);
+        JobFormats.configureMapOutput(job, options);
+        job.setMapperClass(RainFallDistributedDroughtStatistics.YearMapper.class);
+        job.setReducerClass(StreamingReducer.class);
+        job.setMapOutputKeyClass(IntWritable.class);
+        job.setMapOutputValueClass(IntWritable.class);
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(NullWritable.class);
+        //the years must reach one reducer in order
+        job.setNumReduceTasks(1);
+        job.setOutputFormatClass(JobFormats.configureOutput(job, options));
+        return report.run(job);
+    }
+
+    /**
+     * @return the last field of the first line of the file, "The multi annual average is 152" or "152"
+     */
+    private static int readAverage(Path file, Configuration conf) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(file.getFileSystem(conf).open(file), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            if (line == null)
+                throw new IOException("No multi annual average in " + file);
+            String[] fields = line.trim().split("\\s+");
+            return Integer.parseInt(fields[fields.length - 1]);
         }
     }
 
     public static void main(String[] args) throws Exception {
-        Job job = Job.getInstance(new Configuration(), "Rainfall drought statistics");
+        JobOptions options = JobOptions.parse(args);
+        Configuration conf = new Configuration();
+        RunReport report = new RunReport(RainFallDroughtStatistics.class.getName());
+        //--cache directory copies the output of an earlier run over the same input files and flags
+        ResultCache cache = ResultCache.open(RainFallDroughtStatistics.class.getName(), options, conf);
+        if (cache.restore(report)) {
+            report.write(options, conf);
+            System.exit(0);
+        }
+        //--drought-rules "mean:100:3,mean:80:2,median:90:5" evaluates every rule in the same pass,
+        //the lines of each rule are labeled with the rule
+        DroughtRule[] rules = null;
+        if (options.has("--drought-rules")) {
+            rules = DroughtRule.parseAll(options.get("--drought-rules", DroughtRule.DEFAULT));
+            if (options.has("--streaming") || options.getInt("--reducers", 1) > 1)
+                throw new IllegalArgumentException("--drought-rules needs the year table of the single reducer");
+            conf.set(RULES, options.get("--drought-rules", DroughtRule.DEFAULT));
+        }
+        if (options.has("--structured") && options.getInt("--reducers", 1) > 1)
+            throw new IllegalArgumentException("--structured needs the single reducer drought job");
+        //--engine local runs in process without a job, --engine auto does so for small inputs
+        if (LocalRainfallEngine.isLocal(options, conf)) {
+            long start = System.nanoTime();
+            LocalRainfallEngine engine = new LocalRainfallEngine(conf);
+            RainfallAggregates aggregates = engine.aggregate(new Path(options.getInput()), options.has("--binary"));
+            engine.write(new Path(options.getOutput()), new String[]{"part-r-00000"},
+                    Collections.singletonList(rules == null ? aggregates.droughtLines() : aggregates.droughtLines(rules)));
+            report.phase("local", System.nanoTime() - start);
+            engine.report(report);
+            cache.store(report);
+            report.write(options, conf);
+            System.exit(0);
+        }
+        //--reducers N with N > 1 range partitions the years across N reducers
+        if (options.getInt("--reducers", 1) > 1) {
+            boolean status = RainFallDistributedDroughtStatistics.run(options, report);
+            report.setSucceeded(status);
+            if (status)
+                cache.store(report);
+            report.write(options, conf);
+            System.exit(status ? 0 : 1);
+        }
+        //--streaming detects the droughts in one pass over the sorted years, without a year table
+        if (options.has("--streaming")) {
+            boolean status = runStreaming(options, report);
+            report.setSucceeded(status);
+            if (status)
+                cache.store(report);
+            report.write(options, conf);
+            System.exit(status ? 0 : 1);
+        }
+        Job job = Job.getInstance(conf, "Rainfall drought statistics");
         job.setJarByClass(RainFallDroughtStatistics.class);
+        job.setMapOutputKeyClass(Text.class);
+        job.setMapOutputValueClass(YearStats.class);
         job.setOutputKeyClass(Text.class);
-        job.setOutputValueClass(Text.class);
+        job.setOutputValueClass(NullWritable.class);
         job.setMapperClass(MyMapper.class);
         job.setReducerClass(MyReducer.class);
         job.setNumReduceTasks(1);
-        FileInputFormat.setInputPaths(job, new Path(args[0]));
-        FileOutputFormat.setOutputPath(job, new Path(args[1]));
-        boolean status = job.waitForCompletion(true);
+        JobFormats.configureInput(job, options);
+        JobFormats.configureMapOutput(job, options);
+        job.setOutputFormatClass(JobFormats.configureStructuredOutput(job, options));
+        boolean status = report.run(job);
+        if (status)
+            cache.store(report);
+        report.write(options, conf);
         if (status) {
             System.exit(0);
         } else {
@@ -0,0 +1,141 @@
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Job;
+import org.example.JobFormats;
+import org.example.JobOptions;
+import org.example.LocalRainfallEngine;
+import org.example.MeteredMapper;
+import org.example.MeteredReducer;
+import org.example.QuantileSketch;
+import org.example.RainfallRecord;
+import org.example.RainfallSketches;
+import org.example.RunReport;
+
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * A class represent a map reduce process that computes the top K wettest and driest months, row seasons and rows
+ * and the quantiles of the monthly values. Every mapper builds bounded sketches of its rows and writes them
+ * once, so the shuffle carries one small record per mapper instead of the rows
+ */
+public class RainFallExtremesStatistics {
+
+    public static final String TOP = "rainfall.extremes.top";
+    public static final String QUANTILES = "rainfall.extremes.quantiles";
+    public static final String SKETCH_SIZE = "rainfall.extremes.sketch.size";
+    public static final String DEFAULT_QUANTILES = "0.05,0.5,0.95";
+
+    /**
+     * A mapper class, adds every row to the sketches and writes them after the last row
+     */
+    public static class MyMapper extends
+            MeteredMapper<LongWritable, Writable, NullWritable, RainfallSketches> {
+        private RainfallSketches sketches;
+        private RainfallRecord record = new RainfallRecord();
+        private boolean empty = true;
+
+        @Override
+        protected void setup(Context context) {
+            sketches = sketches(context.getConfiguration());
+        }
+
+        public void map(LongWritable key, Writable value, Context context) {
+            RainfallRecord row = parse(value, record);
+            //skip malformed lines
+            if (row == null)
+                return;
+            sketches.add(row);
+            empty = false;
+        }
+
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            if (!empty)
+                emit(context, NullWritable.get(), sketches);
+        }
+    }
+
+    /**
+     * A reducer class, merges the sketches of every mapper and writes the extremes and the quantiles
+     */
+    public static class MyReducer extends
+            MeteredReducer<NullWritable, RainfallSketches, Text, NullWritable> {
+
+        public void reduce(NullWritable key, Iterable<RainfallSketches> values, Context context)
+                throws IOException, InterruptedException {
+            RainfallSketches merged = sketches(context.getConfiguration());
+            for (RainfallSketches sketches : values)
+                merged.merge(sketches);
+            for (String line : merged.lines(parseQuantiles(context.getConfiguration().get(QUANTILES, DEFAULT_QUANTILES))))
+                emit(context, new Text(line), NullWritable.get());
+        }
+    }
+
+    static RainfallSketches sketches(Configuration conf) {
+        return new RainfallSketches(conf.getInt(TOP, RainfallSketches.DEFAULT_TOP),
+                conf.getInt(SKETCH_SIZE, QuantileSketch.DEFAULT_SIZE));
+    }
+
+    /**
+     * @param quantiles - the quantiles separated by commas, e.g. "0.05,0.5,0.95"
+     */
+    public static double[] parseQuantiles(String quantiles) {
+        String[] fractions = quantiles.split(",");
+        double[] parsed = new double[fractions.length];
+        for (int i = 0; i < fractions.length; i++) {
+            parsed[i] = Double.parseDouble(fractions[i].trim());
+            if (parsed[i] < 0 || parsed[i] > 1)
+                throw new IllegalArgumentException("Invalid quantile " + fractions[i]);
+        }
+        return parsed;
+    }
+
+    public static void main(String[] args) throws Exception {
+        JobOptions options = JobOptions.parse(args);
+        Configuration conf = new Configuration();
+        //--top K, --quantiles q1,q2,... and --sketch-size K set the sketches
+        conf.setInt(TOP, options.getInt("--top", RainfallSketches.DEFAULT_TOP));
+        conf.set(QUANTILES, options.get("--quantiles", DEFAULT_QUANTILES));
+        conf.setInt(SKETCH_SIZE, options.getInt("--sketch-size", QuantileSketch.DEFAULT_SIZE));
+        //fail on bad values before the job starts
+        double[] quantiles = parseQuantiles(conf.get(QUANTILES));
+        RainfallSketches local = sketches(conf);
+        RunReport report = new RunReport(RainFallExtremesStatistics.class.getName());
+        //--engine local runs in process without a job, --engine auto does so for small inputs
+        if (LocalRainfallEngine.isLocal(options, conf)) {
+            long start = System.nanoTime();
+            LocalRainfallEngine engine = new LocalRainfallEngine(conf);
+            engine.scan(new Path(options.getInput()), options.has("--binary"), local::add);
+            engine.write(new Path(options.getOutput()), new String[]{"part-r-00000"},
+                    Collections.singletonList(local.lines(quantiles)));
+            report.phase("local", System.nanoTime() - start);
+            engine.report(report);
+            report.write(options, conf);
+            System.exit(0);
+        }
+        Job job = Job.getInstance(conf, "Rainfall extremes statistics");
+        job.setJarByClass(RainFallExtremesStatistics.class);
+        job.setMapOutputKeyClass(NullWritable.class);
+        job.setMapOutputValueClass(RainfallSketches.class);
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(NullWritable.class);
+        job.setMapperClass(MyMapper.class);
+        job.setReducerClass(MyReducer.class);
+        job.setNumReduceTasks(1);
+        JobFormats.configureInput(job, options);
+        JobFormats.configureMapOutput(job, options);
+        job.setOutputFormatClass(JobFormats.configureOutput(job, options));
+        boolean status = report.run(job);
+        report.write(options, conf);
+        if (status) {
+            System.exit(0);
+        } else {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.example.IncrementalState;
+import org.example.JobFormats;
+import org.example.JobOptions;
+import org.example.LocalRainfallEngine;
+import org.example.RainfallAggregates;
+import org.example.RunReport;
+
+import java.util.Arrays;
+
+/**
+ * A class represent the incremental min max, seasons and drought statistics:
+ * only the rows appended to the input since the last run are read and merged into the aggregate state
+ * saved by that run, the drought detection checks only the years after the last settled year.
+ * The input is text or csv files, the binary files are rewritten with a new sync marker by the data file
+ * parser instead of appended to, so a processed length says nothing about them
+ */
+public class RainFallIncrementalStatistics {
+
+    /**
+     * Update the state with the appended rows and write the statistics
+     * @param options - the job options, --state sets the state file
+     * @return the updated aggregates
+     */
+    static RainfallAggregates run(JobOptions options, Configuration conf, RunReport report) throws Exception {
+        String statePath = options.get("--state", null);
+        if (statePath == null)
+            throw new IllegalArgumentException("Usage: <input path> <output path> --state <state file> [--csv]");
+        if (options.has("--binary"))
+            throw new IllegalArgumentException("--binary files are rewritten, not appended to, the incremental"
+                    + " statistics read the text or csv files");
+        Path state = new Path(statePath);
+        long start = System.nanoTime();
+        IncrementalState incrementalState = IncrementalState.load(state, conf);
+        report.phase("load state", System.nanoTime() - start);
+        start = System.nanoTime();
+        JobFormats.configureLocal(conf, options);
+        LocalRainfallEngine engine = new LocalRainfallEngine(conf);
+        RainfallAggregates appended = engine.aggregateAppended(new Path(options.getInput()),
+                incrementalState.getProcessed());
+        RainfallAggregates aggregates = incrementalState.getAggregates();
+        aggregates.merge(appended);
+        engine.report(report);
+        report.phase("aggregate appended rows", System.nanoTime() - start);
+        start = System.nanoTime();
+        //the drought lines are computed before the save so the state keeps the detected droughts
+        engine.write(new Path(options.getOutput()),
+                new String[]{RainFallCombinedStatistics.MIN_MAX + "-r-00000",
+                        RainFallCombinedStatistics.SEASONS + "-r-00000",
+                        RainFallCombinedStatistics.DROUGHT + "-r-00000"},
+                Arrays.asList(aggregates.minMaxLines(), aggregates.seasonsLines(), aggregates.droughtLines()));
+        report.phase("write results", System.nanoTime() - start);
+        start = System.nanoTime();
+        incrementalState.save(state, conf);
+        report.phase("save state", System.nanoTime() - start);
+        return aggregates;
+    }
+
+    public static void main(String[] args) throws Exception {
+        JobOptions options = JobOptions.parse(args);
+        Configuration conf = new Configuration();
+        RunReport report = new RunReport(RainFallIncrementalStatistics.class.getName());
+        RainfallAggregates aggregates = run(options, conf, report);
+        report.write(options, conf);
+        System.out.println("The state holds " + aggregates.getRows() + " rows");
+        System.exit(0);
+    }
+}
@@ -2,15 +2,24 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapreduce.Job;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
-import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
-import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.example.FieldScanner;
+import org.example.JobFormats;
+import org.example.JobOptions;
+import org.example.LocalRainfallEngine;
+import org.example.MeteredMapper;
+import org.example.MeteredReducer;
+import org.example.RainfallAggregates;
+import org.example.RainfallRecord;
+import org.example.RainfallResult;
+import org.example.ResultCache;
+import org.example.RunReport;
 
 import java.io.IOException;
-import java.util.StringTokenizer;
+import java.util.Collections;
 
 /**
  * A class represent a map reduce process
@@ -21,9 +30,10 @@ public class RainFallMinMaxStatistics {
      * A mapper class
      */
     public static class MyMapper extends
-            Mapper<LongWritable, Text, Text, IntWritable> {
+            MeteredMapper<LongWritable, Writable, Text, IntWritable> {
         private IntWritable rainfallValue = new IntWritable();
         private Text year = new Text();
+        private RainfallRecord record = new RainfallRecord();
         private int max = Integer.MIN_VALUE;//min value in order to find the maximum
         private int min = Integer.MAX_VALUE;//max value in order to find the minimum
         private String maxMonth;
@@ -32,28 +42,27 @@ public class RainFallMinMaxStatistics {
         /**
          * A map function in order to map (key, value) pairs according to the process
          * @param key - the key-in value
-         * @param value - the value-in value
+         * @param value - the value-in value, a parsed data file line or a binary record
          * @param context - the (key-out, value-out) pairs
          * @throws IOException
          * @throws InterruptedException
          */
-        public void map(LongWritable key, Text value, Context context)
+        public void map(LongWritable key, Writable value, Context context)
                 throws IOException, InterruptedException {
-            StringTokenizer tokenizer = new StringTokenizer(value.toString());
+            RainfallRecord row = parse(value, record);
+            //skip malformed lines
+            if (row == null)
+                return;
 
-            //extract the year from the line
-            if (tokenizer.hasMoreTokens())
-                year.set(tokenizer.nextToken());
+            //extract the year from the row
+            row.copyYearTo(year);
 
-            for (int i = 0; i < 12; i++) {
-                //extract the rain fall value from the line
-                if (tokenizer.hasMoreTokens()) {
-                    int rainValue = Integer.parseInt(tokenizer.nextToken());
-                    rainfallValue.set(rainValue);
-                }
+            for (int i = 0; i < RainfallRecord.MONTHS; i++) {
+                //extract the rain fall value from the row
+                rainfallValue.set(row.getMonth(i));
 
                 //make a pair of (year, rainfallValue)
-                context.write(year, rainfallValue);
+                emit(context, year, rainfallValue);
 
                 //find the month/year with the max rain fall value
                 if (rainfallValue.get() > max) {
@@ -77,8 +86,8 @@ public class RainFallMinMaxStatistics {
          */
         @Override
         protected void cleanup(Context context) throws IOException, InterruptedException {
-            context.write(new Text("maxMonth-" + maxMonth), new IntWritable(max));
-            context.write(new Text("minMonth-" + minMonth), new IntWritable(min));
+            emit(context, new Text("maxMonth-" + maxMonth), new IntWritable(max));
+            emit(context, new Text("minMonth-" + minMonth), new IntWritable(min));
         }
     }
 
@@ -86,7 +95,7 @@ public class RainFallMinMaxStatistics {
      * A reducer class
      */
     public static class MyReducer extends
-            Reducer<Text, IntWritable, Text, IntWritable> {
+            MeteredReducer<Text, IntWritable, Writable, Writable> {
         private int max = Integer.MIN_VALUE;//min value in order to find the maximum
         private int min = Integer.MAX_VALUE;//max value in order to find the minimum
         private IntWritable sum = new IntWritable();
@@ -96,6 +105,15 @@ public class RainFallMinMaxStatistics {
         private String minMonth;
         private int maxMonthVal;
         private int minMonthVal;
+        //--structured writes typed results instead of the sentences
+        private boolean structured;
+        private final RainfallResult result = new RainfallResult();
+        private final FieldScanner scanner = new FieldScanner();
+
+        @Override
+        protected void setup(Context context) {
+            structured = context.getConfiguration().getBoolean(JobFormats.STRUCTURED, false);
+        }
 
         /**
          * A reduce function in order to aggregate the (key, value) pairs
@@ -128,9 +146,14 @@ public class RainFallMinMaxStatistics {
 
             }
             else {
-                this.sum.set(sum);
                 //make a pair of (year, totalRainfall)
-                context.write(key, this.sum);
+                if (structured) {
+                    emit(context, result.set(RainfallResult.Statistic.YEAR_TOTAL, scanner.reset(key).nextInt(), 0, sum),
+                            NullWritable.get());
+                } else {
+                    this.sum.set(sum);
+                    emit(context, key, this.sum);
+                }
 
                 //find the year with the max rain fall value
                 if(sum > max)
@@ -156,28 +179,76 @@ public class RainFallMinMaxStatistics {
          */
         @Override
         protected void cleanup(Context context) throws IOException, InterruptedException {
-            context.write(new Text("The month and year in which the greatest amount of precipitation fell are " + maxMonth +
+            if (structured) {
+                //an empty input has no results
+                if (maxYear == null)
+                    return;
+                emitMonth(context, RainfallResult.Statistic.MAX_MONTH, maxMonth, maxMonthVal);
+                emitMonth(context, RainfallResult.Statistic.MIN_MONTH, minMonth, minMonthVal);
+                emit(context, result.set(RainfallResult.Statistic.MAX_YEAR, Integer.parseInt(maxYear), 0, max),
+                        NullWritable.get());
+                emit(context, result.set(RainfallResult.Statistic.MIN_YEAR, Integer.parseInt(minYear), 0, min),
+                        NullWritable.get());
+                return;
+            }
+            emit(context, new Text("The month and year in which the greatest amount of precipitation fell are " + maxMonth +
                     ", the amount is "), new IntWritable(maxMonthVal));
-            context.write(new Text("The month and year in which the lowest amount of precipitation fell are " + minMonth +
+            emit(context, new Text("The month and year in which the lowest amount of precipitation fell are " + minMonth +
                     ", the amount is "), new IntWritable(minMonthVal));
-            context.write(new Text("The year in which the biggest amount of precipitation fell is " + maxYear +
+            emit(context, new Text("The year in which the biggest amount of precipitation fell is " + maxYear +
                     ", the amount is "), new IntWritable(max));
-            context.write(new Text("The year in which the smallest amount of precipitation fell is " + minYear +
+            emit(context, new Text("The year in which the smallest amount of precipitation fell is " + minYear +
                     ", the amount is "), new IntWritable(min));
         }
+
+        /**
+         * Write the typed result of a "month/year" label of the mappers
+         */
+        private void emitMonth(Context context, RainfallResult.Statistic statistic, String monthYear, int value)
+                throws IOException, InterruptedException {
+            String[] fields = monthYear.split("/");
+            emit(context, result.set(statistic, Integer.parseInt(fields[1]), Integer.parseInt(fields[0]), value),
+                    NullWritable.get());
+        }
     }
 
     public static void main(String[] args) throws Exception {
-        Job job = Job.getInstance(new Configuration(), "Rainfall min max statistics");
+        JobOptions options = JobOptions.parse(args);
+        Configuration conf = new Configuration();
+        RunReport report = new RunReport(RainFallMinMaxStatistics.class.getName());
+        //--cache directory copies the output of an earlier run over the same input files and flags
+        ResultCache cache = ResultCache.open(RainFallMinMaxStatistics.class.getName(), options, conf);
+        if (cache.restore(report)) {
+            report.write(options, conf);
+            System.exit(0);
+        }
+        //--engine local runs in process without a job, --engine auto does so for small inputs
+        if (LocalRainfallEngine.isLocal(options, conf)) {
+            long start = System.nanoTime();
+            LocalRainfallEngine engine = new LocalRainfallEngine(conf);
+            RainfallAggregates aggregates = engine.aggregate(new Path(options.getInput()), options.has("--binary"));
+            engine.write(new Path(options.getOutput()), new String[]{"part-r-00000"},
+                    Collections.singletonList(aggregates.minMaxLines()));
+            report.phase("local", System.nanoTime() - start);
+            engine.report(report);
+            cache.store(report);
+            report.write(options, conf);
+            System.exit(0);
+        }
+        Job job = Job.getInstance(conf, "Rainfall min max statistics");
         job.setJarByClass(RainFallMinMaxStatistics.class);
         job.setOutputKeyClass(Text.class);
         job.setOutputValueClass(IntWritable.class);
         job.setNumReduceTasks(1);
         job.setMapperClass(MyMapper.class);
         job.setReducerClass(MyReducer.class);
-        FileInputFormat.setInputPaths(job, new Path(args[0]));
-        FileOutputFormat.setOutputPath(job, new Path(args[1]));
-        boolean status = job.waitForCompletion(true);
+        JobFormats.configureInput(job, options);
+        JobFormats.configureMapOutput(job, options);
+        job.setOutputFormatClass(JobFormats.configureStructuredOutput(job, options));
+        boolean status = report.run(job);
+        if (status)
+            cache.store(report);
+        report.write(options, conf);
         if (status) {
             System.exit(0);
         } else {
@@ -0,0 +1,141 @@
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Job;
+import org.example.JobFormats;
+import org.example.JobOptions;
+import org.example.MeteredMapper;
+import org.example.MeteredReducer;
+import org.example.RainfallRecord;
+import org.example.RunReport;
+import org.example.StandardizedPrecipitationIndex;
+import org.example.StationYearKey;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A class represent a map reduce process that computes the rolling sums of every month over
+ * 3, 6 and 12 months (or the "--windows" sizes) and their standardized precipitation index.
+ * Every row is shuffled once, keyed by (station, year), so a reducer gets the years of a station
+ * in ascending order and slides the windows over the months in one pass
+ */
+public class RainFallRollingStatistics {
+
+    public static final String WINDOWS = "rainfall.rolling.windows";
+    public static final String DEFAULT_WINDOWS = "3,6,12";
+
+    /**
+     * A mapper class, makes a pair of ((station, year), row)
+     */
+    public static class MyMapper extends
+            MeteredMapper<LongWritable, Writable, StationYearKey, RainfallRecord> {
+        private StationYearKey stationYear = new StationYearKey();
+        private RainfallRecord record = new RainfallRecord();
+
+        public void map(LongWritable key, Writable value, Context context)
+                throws IOException, InterruptedException {
+            RainfallRecord row = parse(value, record);
+            //skip malformed lines
+            if (row == null)
+                return;
+            stationYear.set(row.getStation(), row.getYear());
+            emit(context, stationYear, row);
+        }
+    }
+
+    /**
+     * A reducer class, gets the rows of one station sorted by year and writes a line per month:
+     * "month/year", the window sums and the window indexes. The rows of the same year are summed
+     * and the lines of a station other than the default one start with the station
+     */
+    public static class MyReducer extends
+            MeteredReducer<StationYearKey, RainfallRecord, Text, Text> {
+        private int[] windows;
+        private int[] months = new int[RainfallRecord.MONTHS];
+        private Text station = new Text();
+        private Text line = new Text();
+
+        @Override
+        protected void setup(Context context) {
+            windows = parseWindows(context.getConfiguration().get(WINDOWS, DEFAULT_WINDOWS));
+        }
+
+        public void reduce(StationYearKey key, Iterable<RainfallRecord> values, Context context)
+                throws IOException, InterruptedException {
+            //the key changes while iterating, the station does not
+            int stationId = key.getStation();
+            StandardizedPrecipitationIndex index = new StandardizedPrecipitationIndex(windows);
+            boolean first = true;
+            int year = 0;
+            for (RainfallRecord row : values) {
+                if (!first && row.getYear() != year) {
+                    index.add(year, months);
+                    Arrays.fill(months, 0);
+                }
+                first = false;
+                year = row.getYear();
+                for (int m = 0; m < RainfallRecord.MONTHS; m++)
+                    months[m] += row.getMonth(m);
+            }
+            if (!first) {
+                index.add(year, months);
+                Arrays.fill(months, 0);
+            }
+            station.set(Integer.toString(stationId));
+            for (String value : index.lines()) {
+                //without a station the month is the key, the text line is the same
+                if (stationId == RainfallRecord.NO_STATION) {
+                    int tab = value.indexOf('\t');
+                    station.set(value.substring(0, tab));
+                    value = value.substring(tab + 1);
+                }
+                line.set(value);
+                emit(context, station, line);
+            }
+        }
+    }
+
+    /**
+     * @param windows - the window sizes separated by commas, e.g. "3,6,12"
+     */
+    public static int[] parseWindows(String windows) {
+        String[] sizes = windows.split(",");
+        int[] parsed = new int[sizes.length];
+        for (int i = 0; i < sizes.length; i++)
+            parsed[i] = Integer.parseInt(sizes[i].trim());
+        return parsed;
+    }
+
+    public static void main(String[] args) throws Exception {
+        JobOptions options = JobOptions.parse(args);
+        Configuration conf = new Configuration();
+        //fail on a bad "--windows" before the job starts
+        conf.set(WINDOWS, options.get("--windows", DEFAULT_WINDOWS));
+        parseWindows(conf.get(WINDOWS));
+        RunReport report = new RunReport(RainFallRollingStatistics.class.getName());
+        Job job = Job.getInstance(conf, "Rainfall rolling statistics");
+        job.setJarByClass(RainFallRollingStatistics.class);
+        job.setMapOutputKeyClass(StationYearKey.class);
+        job.setMapOutputValueClass(RainfallRecord.class);
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(Text.class);
+        job.setMapperClass(MyMapper.class);
+        job.setReducerClass(MyReducer.class);
+        //the stations are spread across the reducers, the years of a station stay together and sorted
+        job.setPartitionerClass(StationYearKey.StationPartitioner.class);
+        job.setGroupingComparatorClass(StationYearKey.StationComparator.class);
+        job.setNumReduceTasks(options.getInt("--reducers", 1));
+        JobFormats.configureInput(job, options);
+        JobFormats.configureMapOutput(job, options);
+        job.setOutputFormatClass(JobFormats.configureOutput(job, options));
+        boolean status = report.run(job);
+        report.write(options, conf);
+        if (status) {
+            System.exit(0);
+        } else {
+            System.exit(1);
+        }
+    }
+}
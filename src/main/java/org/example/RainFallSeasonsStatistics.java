@@ -2,15 +2,25 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapreduce.Job;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
-import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
-import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.example.IntIntHashMap;
+import org.example.JobFormats;
+import org.example.JobOptions;
+import org.example.LocalRainfallEngine;
+import org.example.MeteredMapper;
+import org.example.MeteredReducer;
+import org.example.RainfallAggregates;
+import org.example.RainfallRecord;
+import org.example.RainfallResult;
+import org.example.ResultCache;
+import org.example.RunReport;
+import org.example.SeasonKey;
 
 import java.io.IOException;
-import java.util.StringTokenizer;
+import java.util.Collections;
 
 /**
  * A class represent a map reduce process
@@ -18,48 +28,69 @@ import java.util.StringTokenizer;
 public class RainFallSeasonsStatistics {
 
     /**
-     * A mapper class
+     * A mapper class, the seasonal sums are aggregated in the mapper and written on cleanup
      */
     public static class MyMapper extends
-            Mapper<LongWritable, Text, Text, IntWritable> {
+            MeteredMapper<LongWritable, Writable, SeasonKey, IntWritable> {
+        //flush the partial sums when the map holds this many (year, season) pairs
+        static final int FLUSH_SIZE = 1 << 16;
         private IntWritable rainfallValue = new IntWritable();
-        private Text year = new Text();
+        private SeasonKey seasonKey = new SeasonKey();
+        private RainfallRecord record = new RainfallRecord();
+        private IntIntHashMap seasonSums = new IntIntHashMap(1024);
 
         /**
          * A map function in order to map (key, value) pairs according to the process
          * @param key - the key-in value
-         * @param value - the value-in value
+         * @param value - the value-in value, a parsed data file line or a binary record
          * @param context - the (key-out, value-out) pairs
          * @throws IOException
          * @throws InterruptedException
          */
-        public void map(LongWritable key, Text value, Context context)
+        public void map(LongWritable key, Writable value, Context context)
                 throws IOException, InterruptedException {
-            StringTokenizer tokenizer = new StringTokenizer(value.toString());
+            RainfallRecord row = parse(value, record);
+            //skip malformed lines
+            if (row == null)
+                return;
+            //a year out of the range of the packed key would wrap into another year
+            if (!SeasonKey.fits(row.getYear())) {
+                reject();
+                return;
+            }
 
-            //extract the year from the line
-            if (tokenizer.hasMoreTokens())
-                year.set(tokenizer.nextToken());
+            for (int i = 0; i < RainfallRecord.MONTHS; i++) {
+                //add the rain fall value of the month to the sum of its (year, season)
+                seasonSums.add(SeasonKey.pack(row.getYear(), SeasonKey.seasonOf(i)), row.getMonth(i));
+            }
 
-            for (int i = 0; i < 12; i++) {
-                //extract the rain fall value from the line
-                if (tokenizer.hasMoreTokens()) {
-                    int rainValue = Integer.parseInt(tokenizer.nextToken());
-                    rainfallValue.set(rainValue);
-                }
+            if (seasonSums.size() >= FLUSH_SIZE)
+                flush(context);
+        }
+
+        /**
+         * A cleanup function executes after the map process
+         * @param context - the (key-out, value-out) pairs
+         * @throws IOException
+         * @throws InterruptedException
+         */
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            flush(context);
+        }
 
-                //make a pair of (year-season, rainfallValue)
-                if (i == 0 || i == 1 || i == 11) {//winter
-                    context.write(new Text(year + "-winter"), rainfallValue);
-                } else if (i == 2 || i == 3 || i == 4) {//spring
-                    context.write(new Text(year + "-spring"), rainfallValue);
-                } else if (i == 5 || i == 6 || i == 7) {//summer
-                    context.write(new Text(year + "-summer"), rainfallValue);
-                } else//fall
-                {
-                    context.write(new Text(year + "-fall"), rainfallValue);
+        /**
+         * Write a pair of (year-season, partialRainfall) for every aggregated season
+         */
+        private void flush(Context context) throws IOException, InterruptedException {
+            for (int slot = 0; slot < seasonSums.capacity(); slot++) {
+                if (seasonSums.isUsed(slot)) {
+                    seasonKey.unpack(seasonSums.keyAt(slot));
+                    rainfallValue.set(seasonSums.valueAt(slot));
+                    emit(context, seasonKey, rainfallValue);
                 }
             }
+            seasonSums.clear();
         }
     }
 
@@ -67,12 +98,24 @@ public class RainFallSeasonsStatistics {
      * A reducer class
      */
     public static class MyReducer extends
-            Reducer<Text, IntWritable, Text, IntWritable> {
+            MeteredReducer<SeasonKey, IntWritable, Writable, Writable> {
         private int max = Integer.MIN_VALUE;
         private int min = Integer.MAX_VALUE;
+        private Text seasonYear = new Text();
         private IntWritable sum = new IntWritable();
         private String maxSeasonYear;
         private String minSeasonYear;
+        //the packed (year, season) of the max and min, for the typed results
+        private int maxSeason;
+        private int minSeason;
+        //--structured writes typed results instead of the sentences
+        private boolean structured;
+        private final RainfallResult result = new RainfallResult();
+
+        @Override
+        protected void setup(Context context) {
+            structured = context.getConfiguration().getBoolean(JobFormats.STRUCTURED, false);
+        }
 
         /**
          * A reduce function in order to aggregate the (key, value) pairs
@@ -82,7 +125,7 @@ public class RainFallSeasonsStatistics {
          * @throws IOException
          * @throws InterruptedException
          */
-        public void reduce(Text key, Iterable<IntWritable> values,
+        public void reduce(SeasonKey key, Iterable<IntWritable> values,
                            Context context) throws IOException, InterruptedException {
             int sum = 0;
 
@@ -90,20 +133,30 @@ public class RainFallSeasonsStatistics {
             for (IntWritable val : values) {
                 sum += val.get();
             }
-            this.sum.set(sum);
             //make a pair of (year-season, totalRainfall)
-            context.write(key, this.sum);
+            if (structured) {
+                emit(context, result.set(RainfallResult.Statistic.SEASON_TOTAL, key.getYear(), key.getSeason(), sum),
+                        NullWritable.get());
+            } else {
+                this.sum.set(sum);
+                seasonYear.set(key.toString());
+                emit(context, seasonYear, this.sum);
+            }
 
             //find the year-season with the max rain fall value
             if (sum > max) {
                 max = sum;
-                maxSeasonYear = key.toString();
+                maxSeason = SeasonKey.pack(key.getYear(), key.getSeason());
+                if (!structured)
+                    maxSeasonYear = key.toString();
             }
 
             //find the year-season with the min rain fall value
             if (sum < min) {
                 min = sum;
-                minSeasonYear = key.toString();
+                minSeason = SeasonKey.pack(key.getYear(), key.getSeason());
+                if (!structured)
+                    minSeasonYear = key.toString();
             }
         }
 
@@ -115,25 +168,63 @@ public class RainFallSeasonsStatistics {
          */
         @Override
         protected void cleanup(Context context) throws IOException, InterruptedException {
-            context.write(new Text("The season and year in which the largest precipitation fell are " + maxSeasonYear +
+            if (structured) {
+                //an empty input has no results
+                if (max == Integer.MIN_VALUE)
+                    return;
+                emit(context, result.set(RainfallResult.Statistic.MAX_SEASON, maxSeason >> 2, maxSeason & 3, max),
+                        NullWritable.get());
+                emit(context, result.set(RainfallResult.Statistic.MIN_SEASON, minSeason >> 2, minSeason & 3, min),
+                        NullWritable.get());
+                return;
+            }
+            emit(context, new Text("The season and year in which the largest precipitation fell are " + maxSeasonYear +
                     ", the amount is "), new IntWritable(max));
-            context.write(new Text("The season and year in which the smallest precipitation fell are " + minSeasonYear +
+            emit(context, new Text("The season and year in which the smallest precipitation fell are " + minSeasonYear +
                     ", the amount is "), new IntWritable(min));
         }
     }
 
 
     public static void main(String[] args) throws Exception {
-        Job job = Job.getInstance(new Configuration(), "Rainfall seasons statistics");
+        JobOptions options = JobOptions.parse(args);
+        Configuration conf = new Configuration();
+        RunReport report = new RunReport(RainFallSeasonsStatistics.class.getName());
+        //--cache directory copies the output of an earlier run over the same input files and flags
+        ResultCache cache = ResultCache.open(RainFallSeasonsStatistics.class.getName(), options, conf);
+        if (cache.restore(report)) {
+            report.write(options, conf);
+            System.exit(0);
+        }
+        //--engine local runs in process without a job, --engine auto does so for small inputs
+        if (LocalRainfallEngine.isLocal(options, conf)) {
+            long start = System.nanoTime();
+            LocalRainfallEngine engine = new LocalRainfallEngine(conf);
+            RainfallAggregates aggregates = engine.aggregate(new Path(options.getInput()), options.has("--binary"));
+            engine.write(new Path(options.getOutput()), new String[]{"part-r-00000"},
+                    Collections.singletonList(aggregates.seasonsLines()));
+            report.phase("local", System.nanoTime() - start);
+            engine.report(report);
+            cache.store(report);
+            report.write(options, conf);
+            System.exit(0);
+        }
+        Job job = Job.getInstance(conf, "Rainfall seasons statistics");
         job.setJarByClass(RainFallSeasonsStatistics.class);
+        job.setMapOutputKeyClass(SeasonKey.class);
+        job.setMapOutputValueClass(IntWritable.class);
         job.setOutputKeyClass(Text.class);
         job.setOutputValueClass(IntWritable.class);
         job.setMapperClass(MyMapper.class);
         job.setReducerClass(MyReducer.class);
         job.setNumReduceTasks(1);
-        FileInputFormat.setInputPaths(job, new Path(args[0]));
-        FileOutputFormat.setOutputPath(job, new Path(args[1]));
-        boolean status = job.waitForCompletion(true);
+        JobFormats.configureInput(job, options);
+        JobFormats.configureMapOutput(job, options);
+        job.setOutputFormatClass(JobFormats.configureStructuredOutput(job, options));
+        boolean status = report.run(job);
+        if (status)
+            cache.store(report);
+        report.write(options, conf);
         if (status) {
             System.exit(0);
         } else {
@@ -0,0 +1,122 @@
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.OutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.LazyOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+import org.example.JobFormats;
+import org.example.JobOptions;
+import org.example.MeteredMapper;
+import org.example.MeteredReducer;
+import org.example.RainfallRecord;
+import org.example.RunReport;
+import org.example.StationSeries;
+import org.example.StationYearKey;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A class represent a map reduce process that computes the min max, seasons and drought statistics
+ * of every station. The rows are keyed by (station, year), partitioned by station and grouped by station,
+ * so each reducer computes whole stations with the years in ascending order
+ */
+public class RainFallStationStatistics {
+
+    /**
+     * A mapper class, makes a pair of ((station, year), row)
+     */
+    public static class MyMapper extends
+            MeteredMapper<LongWritable, Writable, StationYearKey, RainfallRecord> {
+        private StationYearKey stationYear = new StationYearKey();
+        private RainfallRecord record = new RainfallRecord();
+
+        public void map(LongWritable key, Writable value, Context context)
+                throws IOException, InterruptedException {
+            RainfallRecord row = parse(value, record);
+            //skip malformed lines
+            if (row == null)
+                return;
+            stationYear.set(row.getStation(), row.getYear());
+            emit(context, stationYear, row);
+        }
+    }
+
+    /**
+     * A reducer class, gets the rows of one station sorted by year and writes the station statistics,
+     * every line starts with the station. The sorted rows are streamed into a station series
+     */
+    public static class MyReducer extends
+            MeteredReducer<StationYearKey, RainfallRecord, Text, Text> {
+        private MultipleOutputs<Text, Text> outputs;
+        private Text station = new Text();
+        private Text line = new Text();
+        private StationSeries series = new StationSeries();
+
+        @Override
+        protected void setup(Context context) {
+            outputs = new MultipleOutputs<>(context);
+        }
+
+        public void reduce(StationYearKey key, Iterable<RainfallRecord> values, Context context)
+                throws IOException, InterruptedException {
+            //the key changes while iterating, the station does not
+            station.set(Integer.toString(key.getStation()));
+            series.reset();
+            for (RainfallRecord row : values)
+                series.add(row);
+            write(RainFallCombinedStatistics.MIN_MAX, series.minMaxLines());
+            write(RainFallCombinedStatistics.SEASONS, series.seasonsLines());
+            write(RainFallCombinedStatistics.DROUGHT, series.droughtLines());
+        }
+
+        private void write(String name, List<String> lines) throws IOException, InterruptedException {
+            for (String value : lines) {
+                line.set(value);
+                outputs.write(name, station, line);
+                emitted(station, line);
+            }
+        }
+
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            outputs.close();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        JobOptions options = JobOptions.parse(args);
+        Configuration conf = new Configuration();
+        RunReport report = new RunReport(RainFallStationStatistics.class.getName());
+        Job job = Job.getInstance(conf, "Rainfall station statistics");
+        job.setJarByClass(RainFallStationStatistics.class);
+        job.setMapOutputKeyClass(StationYearKey.class);
+        job.setMapOutputValueClass(RainfallRecord.class);
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(Text.class);
+        job.setMapperClass(MyMapper.class);
+        job.setReducerClass(MyReducer.class);
+        //the stations are spread across the reducers, the years of a station stay together and sorted
+        job.setPartitionerClass(StationYearKey.StationPartitioner.class);
+        job.setGroupingComparatorClass(StationYearKey.StationComparator.class);
+        job.setNumReduceTasks(options.getInt("--reducers", 1));
+        //every statistic family is written to its own files: minmax-r-*, seasons-r-* and drought-r-*
+        @SuppressWarnings("rawtypes")
+        Class<? extends OutputFormat> format = JobFormats.configureOutput(job, options);
+        LazyOutputFormat.setOutputFormatClass(job, format);
+        MultipleOutputs.addNamedOutput(job, RainFallCombinedStatistics.MIN_MAX, format, Text.class, Text.class);
+        MultipleOutputs.addNamedOutput(job, RainFallCombinedStatistics.SEASONS, format, Text.class, Text.class);
+        MultipleOutputs.addNamedOutput(job, RainFallCombinedStatistics.DROUGHT, format, Text.class, Text.class);
+        JobFormats.configureInput(job, options);
+        JobFormats.configureMapOutput(job, options);
+        boolean status = report.run(job);
+        report.write(options, conf);
+        if (status) {
+            System.exit(0);
+        } else {
+            System.exit(1);
+        }
+    }
+}
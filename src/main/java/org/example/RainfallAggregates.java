@@ -0,0 +1,314 @@
+package org.example;
+
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A class represent the mergeable aggregates behind the min max, seasons and drought statistics.
+ * The result lines are the same lines the map reduce processes write.
+ * The aggregates are a Writable so they can be persisted and merged with new rows later
+ */
+public class RainfallAggregates implements Writable {
+
+    //no year is settled, no year changed
+    private static final int NONE_SETTLED = Integer.MIN_VALUE;
+    private static final int NONE_CHANGED = Integer.MAX_VALUE;
+
+    private final IntIntHashMap yearTotals = new IntIntHashMap(256);
+    private final IntIntHashMap seasonTotals = new IntIntHashMap(1024);
+    //the last average of each year, every row counts in the multi annual average
+    private final IntIntHashMap yearAverages = new IntIntHashMap(256);
+    private long averageSum;
+    private long rows;
+    private int maxMonthVal = Integer.MIN_VALUE;
+    private int minMonthVal = Integer.MAX_VALUE;
+    private String maxMonth;
+    private String minMonth;
+    //the droughts detected so far, the years up to settledThrough can not change them
+    //as long as the multi annual average stays droughtAverage and no row of those years is added
+    private List<String> droughts;
+    private int droughtAverage;
+    private int settledThrough = NONE_SETTLED;
+    //the smallest year added since the droughts were detected
+    private int firstChangedYear = NONE_CHANGED;
+
+    /**
+     * Add a row to the aggregates
+     */
+    public void add(RainfallRecord row) {
+        int year = row.getYear();
+        for (int i = 0; i < RainfallRecord.MONTHS; i++) {
+            int rainValue = row.getMonth(i);
+            yearTotals.add(year, rainValue);
+            seasonTotals.add(SeasonKey.pack(year, SeasonKey.seasonOf(i)), rainValue);
+
+            //find the month/year with the max rain fall value
+            if (rainValue > maxMonthVal) {
+                maxMonthVal = rainValue;
+                maxMonth = (i + 1) + "/" + year;
+            }
+
+            //find the month/year with the min rain fall value
+            if (rainValue < minMonthVal) {
+                minMonthVal = rainValue;
+                minMonth = (i + 1) + "/" + year;
+            }
+        }
+        yearAverages.put(year, row.getAverage());
+        averageSum += row.getAverage();
+        rows++;
+        changed(year);
+    }
+
+    private void changed(int year) {
+        firstChangedYear = Math.min(firstChangedYear, year);
+    }
+
+    /**
+     * Merge the aggregates of the rows that follow the rows of this aggregates
+     */
+    public void merge(RainfallAggregates next) {
+        for (int slot = 0; slot < next.yearTotals.capacity(); slot++) {
+            if (next.yearTotals.isUsed(slot))
+                yearTotals.add(next.yearTotals.keyAt(slot), next.yearTotals.valueAt(slot));
+        }
+        for (int slot = 0; slot < next.seasonTotals.capacity(); slot++) {
+            if (next.seasonTotals.isUsed(slot))
+                seasonTotals.add(next.seasonTotals.keyAt(slot), next.seasonTotals.valueAt(slot));
+        }
+        for (int slot = 0; slot < next.yearAverages.capacity(); slot++) {
+            if (next.yearAverages.isUsed(slot)) {
+                yearAverages.put(next.yearAverages.keyAt(slot), next.yearAverages.valueAt(slot));
+                changed(next.yearAverages.keyAt(slot));
+            }
+        }
+        averageSum += next.averageSum;
+        rows += next.rows;
+        //on a tie the earlier month is kept
+        if (next.maxMonthVal > maxMonthVal) {
+            maxMonthVal = next.maxMonthVal;
+            maxMonth = next.maxMonth;
+        }
+        if (next.minMonthVal < minMonthVal) {
+            minMonthVal = next.minMonthVal;
+            minMonth = next.minMonth;
+        }
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return the lines of the min max statistics, the years sorted as text like the Text keys of the min max job
+     */
+    public List<String> minMaxLines() {
+        List<String> lines = new ArrayList<>();
+        int max = Integer.MIN_VALUE;
+        int min = Integer.MAX_VALUE;
+        String maxYear = null;
+        String minYear = null;
+        for (String year : sortedAsText(yearTotals.sortedKeys())) {
+            int sum = yearTotals.get(Integer.parseInt(year));
+            lines.add(year + "\t" + sum);
+            if (sum > max) {
+                max = sum;
+                maxYear = year;
+            }
+            if (sum < min) {
+                min = sum;
+                minYear = year;
+            }
+        }
+        //the values of the month lines are 0 when there are no rows, like the reducer
+        addMinMaxSummary(lines, maxMonth, rows == 0 ? 0 : maxMonthVal, minMonth, rows == 0 ? 0 : minMonthVal,
+                maxYear, max, minYear, min);
+        return lines;
+    }
+
+    /**
+     * Add the month and year lines that close the min max statistics
+     */
+    static void addMinMaxSummary(List<String> lines, String maxMonth, int maxMonthVal, String minMonth, int minMonthVal,
+                                 String maxYear, int max, String minYear, int min) {
+        lines.add("The month and year in which the greatest amount of precipitation fell are " + maxMonth +
+                ", the amount is \t" + maxMonthVal);
+        lines.add("The month and year in which the lowest amount of precipitation fell are " + minMonth +
+                ", the amount is \t" + minMonthVal);
+        lines.add("The year in which the biggest amount of precipitation fell is " + maxYear +
+                ", the amount is \t" + max);
+        lines.add("The year in which the smallest amount of precipitation fell is " + minYear +
+                ", the amount is \t" + min);
+    }
+
+    /**
+     * @return the lines of the seasons statistics
+     */
+    public List<String> seasonsLines() {
+        List<String> lines = new ArrayList<>();
+        int max = Integer.MIN_VALUE;
+        int min = Integer.MAX_VALUE;
+        String maxSeasonYear = null;
+        String minSeasonYear = null;
+        SeasonKey seasonKey = new SeasonKey();
+        //the packed keys sort like the season keys
+        for (int packed : seasonTotals.sortedKeys()) {
+            seasonKey.unpack(packed);
+            int sum = seasonTotals.get(packed);
+            String seasonYear = seasonKey.toString();
+            lines.add(seasonYear + "\t" + sum);
+            if (sum > max) {
+                max = sum;
+                maxSeasonYear = seasonYear;
+            }
+            if (sum < min) {
+                min = sum;
+                minSeasonYear = seasonYear;
+            }
+        }
+        addSeasonsSummary(lines, maxSeasonYear, max, minSeasonYear, min);
+        return lines;
+    }
+
+    /**
+     * Add the season lines that close the seasons statistics
+     */
+    static void addSeasonsSummary(List<String> lines, String maxSeasonYear, int max, String minSeasonYear, int min) {
+        lines.add("The season and year in which the largest precipitation fell are " + maxSeasonYear +
+                ", the amount is \t" + max);
+        lines.add("The season and year in which the smallest precipitation fell are " + minSeasonYear +
+                ", the amount is \t" + min);
+    }
+
+    /**
+     * @return the lines of the drought statistics, the years in ascending order like the year table of the
+     * drought reducer.
+     * When only years after the settled years were added and the multi annual average did not change,
+     * only the tail of the year sequence is checked for new droughts
+     */
+    public List<String> droughtLines() {
+        List<String> lines = new ArrayList<>();
+        if (rows == 0)
+            return lines;
+        int[] sorted = yearAverages.sortedKeys();
+        int multiAnnualAvg = (int) (averageSum / rows);
+        int start = 0;
+        if (droughts != null && multiAnnualAvg == droughtAverage && settledThrough != NONE_SETTLED
+                && firstChangedYear > settledThrough) {
+            start = Arrays.binarySearch(sorted, settledThrough) + 1;
+        } else {
+            droughts = new ArrayList<>();
+            settledThrough = NONE_SETTLED;
+        }
+        int[] years = Arrays.copyOfRange(sorted, start, sorted.length);
+        int[] averages = new int[years.length];
+        for (int i = 0; i < years.length; i++) {
+            averages[i] = yearAverages.get(years[i]);
+            //a year that is not below the average settles every year up to it
+            if (averages[i] >= multiAnnualAvg)
+                settledThrough = years[i];
+        }
+        droughts.addAll(DroughtDetector.detect(years, averages, years.length, multiAnnualAvg));
+        droughtAverage = multiAnnualAvg;
+        firstChangedYear = NONE_CHANGED;
+        lines.add(DroughtDetector.averageLine(multiAnnualAvg));
+        lines.addAll(droughts);
+        return lines;
+    }
+
+    /**
+     * @return the lines of the drought rules, each prefixed by its rule like the drought reducer writes them
+     */
+    public List<String> droughtLines(DroughtRule[] rules) {
+        if (rows == 0)
+            return new ArrayList<>();
+        YearTable table = new YearTable();
+        for (int year : yearAverages.sortedKeys())
+            table.add(year, yearAverages.get(year));
+        return DroughtDetector.label(rules, DroughtDetector.detect(table, rules, (int) (averageSum / rows)));
+    }
+
+    private static String[] sortedAsText(int[] years) {
+        String[] sorted = new String[years.length];
+        for (int i = 0; i < years.length; i++)
+            sorted[i] = Integer.toString(years[i]);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        yearTotals.write(out);
+        seasonTotals.write(out);
+        yearAverages.write(out);
+        out.writeLong(averageSum);
+        out.writeLong(rows);
+        out.writeInt(maxMonthVal);
+        out.writeInt(minMonthVal);
+        writeString(out, maxMonth);
+        writeString(out, minMonth);
+        out.writeBoolean(droughts != null);
+        if (droughts != null) {
+            out.writeInt(droughts.size());
+            for (String drought : droughts)
+                writeLongString(out, drought);
+            out.writeInt(droughtAverage);
+            out.writeInt(settledThrough);
+        }
+        out.writeInt(firstChangedYear);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        yearTotals.readFields(in);
+        seasonTotals.readFields(in);
+        yearAverages.readFields(in);
+        averageSum = in.readLong();
+        rows = in.readLong();
+        maxMonthVal = in.readInt();
+        minMonthVal = in.readInt();
+        maxMonth = readString(in);
+        minMonth = readString(in);
+        droughts = null;
+        settledThrough = NONE_SETTLED;
+        if (in.readBoolean()) {
+            int count = in.readInt();
+            droughts = new ArrayList<>(count);
+            for (int i = 0; i < count; i++)
+                droughts.add(readLongString(in));
+            droughtAverage = in.readInt();
+            settledThrough = in.readInt();
+        }
+        firstChangedYear = in.readInt();
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null)
+            out.writeUTF(value);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    //a drought line lists every year of its run, it may pass the 64KB limit of writeUTF
+    private static void writeLongString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readLongString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,64 @@
+package org.example;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * A class represent the layout of the binary parsed data file.
+ * The file starts with a header (magic, version, sync marker) followed by blocks,
+ * every block is the sync marker, the record count and the fixed width records
+ */
+public final class RainfallBinaryFormat {
+
+    static final byte[] MAGIC = {'R', 'F', 'B'};
+    //version 2 added the station of every record
+    static final byte VERSION = 2;
+    static final int SYNC_SIZE = 16;
+    static final int HEADER_SIZE = MAGIC.length + 1 + SYNC_SIZE;
+    public static final String FILE_NAME = "ParsedDataFile.bin";
+
+    private RainfallBinaryFormat() {
+    }
+
+    /**
+     * @return a new random sync marker
+     */
+    static byte[] newSync() {
+        byte[] sync = new byte[SYNC_SIZE];
+        new SecureRandom().nextBytes(sync);
+        return sync;
+    }
+
+    /**
+     * @param sync - the sync marker of the file
+     * @return the file header
+     */
+    static byte[] header(byte[] sync) {
+        byte[] header = new byte[HEADER_SIZE];
+        System.arraycopy(MAGIC, 0, header, 0, MAGIC.length);
+        header[MAGIC.length] = VERSION;
+        System.arraycopy(sync, 0, header, MAGIC.length + 1, SYNC_SIZE);
+        return header;
+    }
+
+    /**
+     * Read the file header
+     * @param in - the input positioned at the beginning of the file
+     * @return the sync marker of the file
+     * @throws IOException if the header is not a valid header
+     */
+    static byte[] readHeader(DataInput in) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC))
+            throw new IOException("Not a binary rainfall data file");
+        byte version = in.readByte();
+        if (version != VERSION)
+            throw new IOException("Unsupported binary rainfall data file version " + version);
+        byte[] sync = new byte[SYNC_SIZE];
+        in.readFully(sync);
+        return sync;
+    }
+}
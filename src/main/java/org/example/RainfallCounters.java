@@ -0,0 +1,12 @@
+package org.example;
+
+/**
+ * The counters of the rainfall jobs, the nanosecond counters sum the phase times of all the tasks.
+ * BYTES_IN counts the input lines (with the newline) or binary records, BYTES_OUT the result lines.
+ * CACHE_HITS and CACHE_MISSES count the runs answered from the result cache or run and stored in it
+ */
+public enum RainfallCounters {
+    ROWS_PARSED, MALFORMED_ROWS, MAP_RECORDS_EMITTED, REDUCE_RECORDS_EMITTED, BYTES_IN, BYTES_OUT,
+    MAP_SETUP_NANOS, MAP_NANOS, MAP_CLEANUP_NANOS, REDUCE_SETUP_NANOS, REDUCE_NANOS, REDUCE_CLEANUP_NANOS,
+    CACHE_HITS, CACHE_MISSES
+}
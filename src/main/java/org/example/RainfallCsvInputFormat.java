@@ -0,0 +1,26 @@
+package org.example;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.CombineFileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.CombineFileRecordReader;
+import org.apache.hadoop.mapreduce.lib.input.CombineFileSplit;
+
+import java.io.IOException;
+
+/**
+ * A class represent the input format of the csv data files, the mappers get (offset, record) pairs.
+ * Many small files (e.g. one per station) are packed into combined splits of up to the max split size,
+ * so a mapper reads many files instead of one tiny file each. Large files are split on lines
+ * and files compressed with a codec of their extension are read whole
+ */
+public class RainfallCsvInputFormat extends CombineFileInputFormat<LongWritable, RainfallRecord> {
+
+    @Override
+    public RecordReader<LongWritable, RainfallRecord> createRecordReader(InputSplit split, TaskAttemptContext context)
+            throws IOException {
+        return new CombineFileRecordReader<>((CombineFileSplit) split, context, RainfallCsvRecordReader.class);
+    }
+}
@@ -0,0 +1,100 @@
+package org.example;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+import org.apache.hadoop.mapreduce.lib.input.CombineFileSplit;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.lib.input.LineRecordReader;
+
+import java.io.IOException;
+
+/**
+ * A class represent a record reader of the csv data file, the lines are parsed into records and the year average
+ * is computed on the way, so the jobs read the csv files without the data file parser.
+ * The reader reads a file split, or one file of a combined split when the combine file record reader creates it.
+ * Lines without a year and 12 months are skipped and counted in the MALFORMED_ROWS counter of the task,
+ * the local engine reads the skipped lines from getSkipped instead
+ */
+public class RainfallCsvRecordReader extends RecordReader<LongWritable, RainfallRecord> {
+
+    //the file of a combined split, null for a file split
+    private final Integer index;
+    private final LineRecordReader lines = new LineRecordReader();
+    private final LongWritable key = new LongWritable();
+    private final RainfallRecord value = new RainfallRecord();
+    private long skipped;
+    //the counter of the map task, null when the reader runs outside of a task
+    private Counter malformed;
+
+    public RainfallCsvRecordReader() {
+        this.index = null;
+    }
+
+    /**
+     * The constructor the combine file record reader calls for each file of a combined split
+     * @param index - the file of the split
+     */
+    public RainfallCsvRecordReader(CombineFileSplit split, TaskAttemptContext context, Integer index) {
+        this.index = index;
+    }
+
+    @Override
+    public void initialize(InputSplit genericSplit, TaskAttemptContext context) throws IOException {
+        FileSplit split;
+        if (index != null) {
+            CombineFileSplit combined = (CombineFileSplit) genericSplit;
+            split = new FileSplit(combined.getPath(index), combined.getOffset(index), combined.getLength(index),
+                    combined.getLocations());
+        } else {
+            split = (FileSplit) genericSplit;
+        }
+        lines.initialize(split, context);
+        if (context instanceof TaskInputOutputContext)
+            malformed = ((TaskInputOutputContext<?, ?, ?, ?>) context).getCounter(RainfallCounters.MALFORMED_ROWS);
+    }
+
+    @Override
+    public boolean nextKeyValue() throws IOException {
+        while (lines.nextKeyValue()) {
+            if (value.parseCsv(lines.getCurrentValue())) {
+                key.set(lines.getCurrentKey().get());
+                return true;
+            }
+            skipped++;
+            if (malformed != null)
+                malformed.increment(1);
+        }
+        return false;
+    }
+
+    /**
+     * @return the lines skipped so far
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    @Override
+    public LongWritable getCurrentKey() {
+        return key;
+    }
+
+    @Override
+    public RainfallRecord getCurrentValue() {
+        return value;
+    }
+
+    @Override
+    public float getProgress() throws IOException {
+        return lines.getProgress();
+    }
+
+    @Override
+    public void close() throws IOException {
+        lines.close();
+    }
+}
@@ -0,0 +1,350 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A class represent a deterministic generator of synthetic rainfall rows, in the csv format the data file parser
+ * reads or in the parsed format the jobs read. A row is a function of the seed and the row number only,
+ * so the files may be written in parallel and the rows do not depend on the amount of files.
+ * The rows of a station are consecutive years. Every year sums to 100%-102% of 12 times the base
+ * monthly value, except the planted drought runs that sum to 30%-50% of it, so when the droughts cover
+ * at least a tenth of the years the detected droughts are exactly the planted runs (a run cut by the last row
+ * is not reported, like any drought still open at the last year).
+ * The planted extremes are the wettest months (20 times the base value and more) and the months without rain,
+ * at most one in 100 rows so they do not lift the multi annual average over the normal years
+ */
+public class RainfallDataGenerator {
+
+    public static final int BASE = 150;
+    static final int WET_EXTREME = 20 * BASE;
+    static final String CSV = "csv";
+    static final String PARSED = "parsed";
+    //the default size of a generated file
+    static final long FILE_BYTES = 128L * 1024 * 1024;
+
+    private long seed = 42;
+    private int stations;
+    private int firstYear = 1900;
+    private int droughtEvery = 20;
+    private int droughtLength = 3;
+    private int extremes = 10;
+    private boolean parsed;
+
+    public RainfallDataGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * @param stations - the amount of stations, 0 writes the rows without the station column
+     */
+    public RainfallDataGenerator stations(int stations) {
+        this.stations = stations;
+        return this;
+    }
+
+    public RainfallDataGenerator firstYear(int firstYear) {
+        this.firstYear = firstYear;
+        return this;
+    }
+
+    /**
+     * @param every - a drought run starts in the middle of every "every" years of a station, 0 for none
+     * @param length - the years of a run
+     */
+    public RainfallDataGenerator droughts(int every, int length) {
+        if (every > 0 && (length < DroughtDetector.MIN_DROUGHT_YEARS || length > every / 2))
+            throw new IllegalArgumentException("A drought run needs " + DroughtDetector.MIN_DROUGHT_YEARS
+                    + " to " + every / 2 + " years");
+        if (every > 0 && length * 10 < every)
+            throw new IllegalArgumentException("The droughts must cover a tenth of the years at least");
+        this.droughtEvery = every;
+        this.droughtLength = length;
+        return this;
+    }
+
+    /**
+     * @param extremes - the amount of planted wettest and driest months
+     */
+    public RainfallDataGenerator extremes(int extremes) {
+        this.extremes = extremes;
+        return this;
+    }
+
+    /**
+     * @param parsed - true for the parsed data file format, false for the csv format
+     */
+    public RainfallDataGenerator parsed(boolean parsed) {
+        this.parsed = parsed;
+        return this;
+    }
+
+    /**
+     * @return true if the year of a station is in a planted drought run
+     */
+    public boolean isDrought(long yearIndex) {
+        if (droughtEvery == 0)
+            return false;
+        long position = yearIndex % droughtEvery;
+        return position >= droughtEvery / 2 && position < droughtEvery / 2 + droughtLength;
+    }
+
+    /**
+     * @return the years of every station
+     */
+    static long yearsPerStation(long rows, int stations) {
+        return stations == 0 ? rows : (rows + stations - 1) / stations;
+    }
+
+    /**
+     * Check the last year of a station still packs into a season key, a single series has one year per row
+     */
+    void checkYears(long rows) {
+        long lastYear = firstYear + yearsPerStation(rows, stations) - 1;
+        if (lastYear > SeasonKey.MAX_YEAR)
+            throw new IllegalArgumentException("The last year of a station is " + lastYear + ", the limit is "
+                    + SeasonKey.MAX_YEAR + ", use more stations or fewer rows");
+    }
+
+    /**
+     * @return the rows with a planted wettest and driest month, in row order
+     */
+    long[] extremeRows(long rows) {
+        long years = yearsPerStation(rows, stations);
+        List<Long> picked = new ArrayList<>();
+        long planted = Math.min(extremes, rows / 100);
+        for (long i = 0; i < planted; i++) {
+            long row = (i + 1) * rows / (planted + 1);
+            //an extreme stays out of the drought runs, it must not lift them over the average
+            while (row < rows && isDrought(row % years))
+                row++;
+            if (row < rows && (picked.isEmpty() || picked.get(picked.size() - 1) < row))
+                picked.add(row);
+        }
+        long[] result = new long[picked.size()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = picked.get(i);
+        return result;
+    }
+
+    /**
+     * Fill the monthly values of a row
+     * @param extreme - the rank of the planted extreme of the row, -1 for none
+     */
+    void months(long row, long yearIndex, int extreme, int[] months) {
+        long state = mix(seed ^ mix(row));
+        //the total of the year comes first, the months share it by weight
+        state = mix(state);
+        long total = isDrought(yearIndex)
+                ? 12L * BASE * (30 + unsigned(state) % 21) / 100
+                : 12L * BASE + unsigned(state) % (12 * BASE * 2 / 100 + 1);
+        double[] weights = new double[RainfallRecord.MONTHS];
+        double weightSum = 0;
+        for (int m = 0; m < weights.length; m++) {
+            state = mix(state);
+            //a seasonal curve, wetter at the end of the year, and up to 25% noise either way
+            double seasonal = 1 + 0.35 * Math.cos(2 * Math.PI * (m - 10) / 12);
+            weights[m] = seasonal * (0.75 + 0.5 * (unsigned(state) >>> 11) / (double) (1L << 52));
+            weightSum += weights[m];
+        }
+        long assigned = 0;
+        for (int m = 0; m < months.length; m++) {
+            months[m] = (int) (total * weights[m] / weightSum);
+            assigned += months[m];
+        }
+        for (int m = 0; assigned < total; m = (m + 1) % months.length, assigned++)
+            months[m]++;
+        if (extreme >= 0) {
+            state = mix(state);
+            int wet = (int) (unsigned(state) % RainfallRecord.MONTHS);
+            int dry = (wet + 6) % RainfallRecord.MONTHS;
+            //the driest month gives its rain to the next month, the year total stays the same
+            months[(dry + 1) % RainfallRecord.MONTHS] += months[dry];
+            months[dry] = 0;
+            months[wet] = WET_EXTREME + extremes - extreme;
+        }
+    }
+
+    /**
+     * Write the rows in parallel, every file holds a range of consecutive rows
+     * @return the bytes written
+     */
+    public long generate(Path directory, long rows, int files, int threads) throws IOException {
+        checkYears(rows);
+        Files.createDirectories(directory);
+        long[] extremeRows = extremeRows(rows);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, files)));
+        try {
+            List<Future<Long>> tasks = new ArrayList<>();
+            for (int file = 0; file < files; file++) {
+                long from = file * rows / files;
+                long to = (file + 1) * rows / files;
+                Path path = directory.resolve(String.format(Locale.ROOT, "rainfall-%05d.%s", file, parsed ? "txt" : CSV));
+                tasks.add(pool.submit(() -> write(path, from, to, rows, extremeRows)));
+            }
+            long bytes = 0;
+            for (Future<Long> task : tasks)
+                bytes += task.get();
+            return bytes;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to generate " + directory, e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private long write(Path path, long from, long to, long rows, long[] extremeRows) throws IOException {
+        long years = yearsPerStation(rows, stations);
+        int[] months = new int[RainfallRecord.MONTHS];
+        byte[] buffer = new byte[1 << 20];
+        int position = 0;
+        long bytes = 0;
+        //the next planted extreme at or after the first row of the file
+        int extreme = 0;
+        while (extreme < extremeRows.length && extremeRows[extreme] < from)
+            extreme++;
+        try (OutputStream out = Files.newOutputStream(path)) {
+            for (long row = from; row < to; row++) {
+                //a row is at most 15 numbers of 11 characters and their separators
+                if (position > buffer.length - 200) {
+                    out.write(buffer, 0, position);
+                    bytes += position;
+                    position = 0;
+                }
+                boolean planted = extreme < extremeRows.length && extremeRows[extreme] == row;
+                long yearIndex = row % years;
+                months(row, yearIndex, planted ? extreme : -1, months);
+                if (planted)
+                    extreme++;
+                byte separator = parsed ? (byte) ' ' : (byte) ',';
+                if (stations > 0) {
+                    position = appendInt(buffer, position, (int) (row / years) + 1);
+                    buffer[position++] = separator;
+                }
+                position = appendInt(buffer, position, (int) (firstYear + yearIndex));
+                int sum = 0;
+                for (int value : months) {
+                    buffer[position++] = separator;
+                    position = appendInt(buffer, position, value);
+                    sum += value;
+                }
+                if (parsed) {
+                    buffer[position++] = separator;
+                    position = appendInt(buffer, position, sum / RainfallRecord.MONTHS);
+                }
+                buffer[position++] = '\n';
+            }
+            out.write(buffer, 0, position);
+            bytes += position;
+        }
+        return bytes;
+    }
+
+    private static int appendInt(byte[] buffer, int position, int value) {
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (int rest = value / 10; rest > 0; rest /= 10)
+            digits++;
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return position + digits;
+    }
+
+    /**
+     * @return the average size of a row, measured on the first rows
+     */
+    long rowBytes() throws IOException {
+        Path sample = Files.createTempFile("rainfall", ".sample");
+        try {
+            long rows = 1000;
+            return Math.max(1, write(sample, 0, rows, rows, new long[0]) / rows);
+        } finally {
+            Files.delete(sample);
+        }
+    }
+
+    //the splitmix64 finalizer, a row number becomes a well spread seed
+    private static long mix(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long unsigned(long value) {
+        return value & Long.MAX_VALUE;
+    }
+
+    /**
+     * @param size - a byte count with an optional KB, MB, GB or TB suffix
+     */
+    static long parseSize(String size) {
+        String upper = size.trim().toUpperCase();
+        String[] suffixes = {"TB", "GB", "MB", "KB"};
+        long[] multipliers = {1L << 40, 1L << 30, 1L << 20, 1L << 10};
+        for (int i = 0; i < suffixes.length; i++) {
+            if (upper.endsWith(suffixes[i]))
+                return (long) (Double.parseDouble(upper.substring(0, upper.length() - 2)) * multipliers[i]);
+        }
+        return Long.parseLong(upper.endsWith("B") ? upper.substring(0, upper.length() - 1) : upper);
+    }
+
+    public static void main(String[] args) throws Exception {
+        JobOptions options;
+        try {
+            options = JobOptions.parseOutput(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Usage: <output directory> [--size 10GB | --rows N] [--files N] [--threads N] [--seed N]"
+                    + " [--format csv|parsed] [--stations N] [--first-year N] [--drought-every N] [--drought-length N]"
+                    + " [--extremes N]");
+            return;
+        }
+        String format = options.get("--format", CSV);
+        if (!format.equals(CSV) && !format.equals(PARSED))
+            throw new IllegalArgumentException("Unknown format " + format + ", expected csv or parsed");
+        RainfallDataGenerator generator = new RainfallDataGenerator()
+                .seed(Long.parseLong(options.get("--seed", "42")))
+                .stations(options.getInt("--stations", 0))
+                .firstYear(options.getInt("--first-year", 1900))
+                .droughts(options.getInt("--drought-every", 20), options.getInt("--drought-length", 3))
+                .extremes(options.getInt("--extremes", 10))
+                .parsed(format.equals(PARSED));
+        long rowBytes = generator.rowBytes();
+        long rows = options.has("--rows") ? Long.parseLong(options.get("--rows", "0"))
+                : parseSize(options.get("--size", "10MB")) / rowBytes;
+        int files = options.getInt("--files", (int) Math.max(1, (rows * rowBytes + FILE_BYTES - 1) / FILE_BYTES));
+        int threads = options.getInt("--threads", Runtime.getRuntime().availableProcessors());
+
+        RunReport report = new RunReport(RainfallDataGenerator.class.getName());
+        long start = System.nanoTime();
+        Path output = Paths.get(options.getOutput());
+        long bytes = generator.generate(output, rows, files, threads);
+        long elapsed = System.nanoTime() - start;
+        report.phase("generate", elapsed);
+        report.counter(RainfallCounters.BYTES_OUT, bytes);
+        //the report is a hidden file, the jobs skip it
+        Files.write(output.resolve(RunReport.FILE_NAME), report.toJson().getBytes(StandardCharsets.UTF_8));
+        System.out.println(String.format("Generated %d rows, %d bytes in %d files in %d ms (%.0f MB/sec)",
+                rows, bytes, files, elapsed / 1000000, bytes / 1048576.0 * 1e9 / Math.max(elapsed, 1)));
+    }
+}
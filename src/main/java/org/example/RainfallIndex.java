@@ -0,0 +1,456 @@
+package org.example;
+
+import org.apache.hadoop.conf.Configuration;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A class represent a memory mapped index of the parsed data file for range queries.
+ * The index holds six series over the contiguous year range: the months, the years and one per season.
+ * Every series stores its values, the prefix counts of the years with rows, the prefix sums and
+ * sparse tables of the max and min positions, so sums and averages take O(1) and min max take O(1)
+ * without loading the file onto the heap
+ */
+public class RainfallIndex {
+
+    static final byte[] MAGIC = {'R', 'F', 'I'};
+    static final byte VERSION = 1;
+    //magic, version, first year, years
+    static final int HEADER_SIZE = MAGIC.length + 1 + 4 + 4;
+    public static final String FILE_NAME = "RainfallIndex.bin";
+
+    private static final int SEASONS = 4;
+    //the most years whose index fits a single mapping, which is addressed with int positions
+    static final int MAX_YEARS = maxYears();
+
+    private final ByteBuffer buffer;
+    private final int firstYear;
+    private final int years;
+    private final Series months;
+    private final Series yearTotals;
+    private final Series[] seasonTotals = new Series[SEASONS];
+
+    private RainfallIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.get(i) != MAGIC[i])
+                throw new IOException("Not a rainfall index file");
+        }
+        byte version = buffer.get(MAGIC.length);
+        if (version != VERSION)
+            throw new IOException("Unsupported rainfall index version " + version);
+        firstYear = buffer.getInt(MAGIC.length + 1);
+        years = buffer.getInt(MAGIC.length + 5);
+        long offset = HEADER_SIZE;
+        months = new Series(offset, years * RainfallRecord.MONTHS);
+        offset += seriesSize(months.length);
+        yearTotals = new Series(offset, years);
+        offset += seriesSize(years);
+        for (int season = 0; season < SEASONS; season++) {
+            seasonTotals[season] = new Series(offset, years);
+            offset += seriesSize(years);
+        }
+        if (offset != buffer.capacity())
+            throw new IOException("Truncated rainfall index file");
+    }
+
+    /**
+     * Map an index file, the mapping stays valid after the file channel is closed
+     * @param file - the index file
+     * @return the index
+     */
+    public static RainfallIndex open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new RainfallIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int getFirstYear() {
+        return firstYear;
+    }
+
+    public int getLastYear() {
+        return firstYear + years - 1;
+    }
+
+    /**
+     * @return true if the data file has a row of the year
+     */
+    public boolean hasYear(int year) {
+        return year >= firstYear && year <= getLastYear() && yearTotals.present(year - firstYear);
+    }
+
+    /**
+     * @param fromMonth - the first month, 1 for January
+     * @param toMonth - the last month, inclusive
+     * @return the rainfall sum of the months from fromMonth/fromYear to toMonth/toYear
+     */
+    public long monthSum(int fromYear, int fromMonth, int toYear, int toMonth) {
+        int[] range = monthRange(fromYear, fromMonth, toYear, toMonth);
+        return range == null ? 0 : months.sum(range[0], range[1]);
+    }
+
+    /**
+     * @return the average monthly rainfall of the months with rows, NaN if there are none
+     */
+    public double monthAverage(int fromYear, int fromMonth, int toYear, int toMonth) {
+        int[] range = monthRange(fromYear, fromMonth, toYear, toMonth);
+        return range == null ? Double.NaN : months.average(range[0], range[1]);
+    }
+
+    /**
+     * @return the month with the greatest rainfall, the earliest one on a tie, null if there are no rows
+     */
+    public Extreme maxMonth(int fromYear, int fromMonth, int toYear, int toMonth) {
+        int[] range = monthRange(fromYear, fromMonth, toYear, toMonth);
+        return range == null ? null : monthExtreme(months.extreme(range[0], range[1], true));
+    }
+
+    /**
+     * @return the month with the lowest rainfall, the earliest one on a tie, null if there are no rows
+     */
+    public Extreme minMonth(int fromYear, int fromMonth, int toYear, int toMonth) {
+        int[] range = monthRange(fromYear, fromMonth, toYear, toMonth);
+        return range == null ? null : monthExtreme(months.extreme(range[0], range[1], false));
+    }
+
+    /**
+     * @return the rainfall sum of the years from fromYear to toYear, inclusive
+     */
+    public long yearSum(int fromYear, int toYear) {
+        int[] range = yearRange(fromYear, toYear);
+        return range == null ? 0 : yearTotals.sum(range[0], range[1]);
+    }
+
+    /**
+     * @return the average yearly rainfall of the years with rows, NaN if there are none
+     */
+    public double yearAverage(int fromYear, int toYear) {
+        int[] range = yearRange(fromYear, toYear);
+        return range == null ? Double.NaN : yearTotals.average(range[0], range[1]);
+    }
+
+    public Extreme maxYear(int fromYear, int toYear) {
+        return yearExtreme(yearTotals, fromYear, toYear, true, (byte) -1);
+    }
+
+    public Extreme minYear(int fromYear, int toYear) {
+        return yearExtreme(yearTotals, fromYear, toYear, false, (byte) -1);
+    }
+
+    /**
+     * @param season - the season, e.g. SeasonKey.WINTER
+     * @return the rainfall sum of the season in the years from fromYear to toYear
+     */
+    public long seasonSum(byte season, int fromYear, int toYear) {
+        int[] range = yearRange(fromYear, toYear);
+        return range == null ? 0 : seasonTotals[season].sum(range[0], range[1]);
+    }
+
+    public double seasonAverage(byte season, int fromYear, int toYear) {
+        int[] range = yearRange(fromYear, toYear);
+        return range == null ? Double.NaN : seasonTotals[season].average(range[0], range[1]);
+    }
+
+    /**
+     * @return the year with the wettest season, e.g. the wettest winter since 1980
+     */
+    public Extreme maxSeason(byte season, int fromYear, int toYear) {
+        return yearExtreme(seasonTotals[season], fromYear, toYear, true, season);
+    }
+
+    public Extreme minSeason(byte season, int fromYear, int toYear) {
+        return yearExtreme(seasonTotals[season], fromYear, toYear, false, season);
+    }
+
+    private Extreme yearExtreme(Series series, int fromYear, int toYear, boolean max, byte season) {
+        int[] range = yearRange(fromYear, toYear);
+        if (range == null)
+            return null;
+        int index = series.extreme(range[0], range[1], max);
+        if (index < 0)
+            return null;
+        int year = firstYear + index;
+        //the season results are labelled like the season keys
+        String label = season < 0 ? Integer.toString(year) : new SeasonKey(year, season).toString();
+        return new Extreme(year, label, series.value(index));
+    }
+
+    private Extreme monthExtreme(int index) {
+        if (index < 0)
+            return null;
+        int year = firstYear + index / RainfallRecord.MONTHS;
+        return new Extreme(year, (index % RainfallRecord.MONTHS + 1) + "/" + year, months.value(index));
+    }
+
+    /**
+     * @return the clamped [from, to] month positions or null if the range is empty
+     */
+    private int[] monthRange(int fromYear, int fromMonth, int toYear, int toMonth) {
+        long from = Math.max(0, ((long) fromYear - firstYear) * RainfallRecord.MONTHS + fromMonth - 1);
+        long to = Math.min(months.length - 1L, ((long) toYear - firstYear) * RainfallRecord.MONTHS + toMonth - 1);
+        return from > to ? null : new int[]{(int) from, (int) to};
+    }
+
+    private int[] yearRange(int fromYear, int toYear) {
+        long from = Math.max(0, (long) fromYear - firstYear);
+        long to = Math.min(years - 1L, (long) toYear - firstYear);
+        return from > to ? null : new int[]{(int) from, (int) to};
+    }
+
+    /**
+     * A class represent the result of a min max query: the year, the label of the month ("3/1998"),
+     * season ("1998-winter") or year and the rainfall value
+     */
+    public static class Extreme {
+        private final int year;
+        private final String label;
+        private final int value;
+
+        Extreme(int year, String label, int value) {
+            this.year = year;
+            this.label = label;
+            this.value = value;
+        }
+
+        public int getYear() {
+            return year;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return label + "\t" + value;
+        }
+    }
+
+    /**
+     * A class represent a series of the index file: int values[n], int presentPrefix[n + 1],
+     * long prefix[n + 1], then the max and min sparse tables, int[levels][n] positions each
+     */
+    private class Series {
+        private final long valuesAt;
+        private final long presentAt;
+        private final long prefixAt;
+        private final long maxAt;
+        private final long minAt;
+        private final int length;
+
+        Series(long offset, int length) {
+            this.length = length;
+            valuesAt = offset;
+            presentAt = valuesAt + 4L * length;
+            prefixAt = presentAt + 4L * (length + 1);
+            maxAt = prefixAt + 8L * (length + 1);
+            minAt = maxAt + 4L * levels(length) * length;
+        }
+
+        int value(int i) {
+            return buffer.getInt((int) (valuesAt + 4L * i));
+        }
+
+        boolean present(int i) {
+            return presentCount(i + 1) > presentCount(i);
+        }
+
+        private int presentCount(int i) {
+            return buffer.getInt((int) (presentAt + 4L * i));
+        }
+
+        long sum(int from, int to) {
+            return buffer.getLong((int) (prefixAt + 8L * (to + 1))) - buffer.getLong((int) (prefixAt + 8L * from));
+        }
+
+        double average(int from, int to) {
+            int count = presentCount(to + 1) - presentCount(from);
+            return count == 0 ? Double.NaN : (double) sum(from, to) / count;
+        }
+
+        /**
+         * @return the position of the max (or min) present value in [from, to], -1 if none is present
+         */
+        int extreme(int from, int to, boolean max) {
+            long table = max ? maxAt : minAt;
+            int level = 31 - Integer.numberOfLeadingZeros(to - from + 1);
+            int left = buffer.getInt((int) (table + 4L * ((long) level * length + from)));
+            int right = buffer.getInt((int) (table + 4L * ((long) level * length + to - (1 << level) + 1)));
+            int index = better(this::value, this::present, left, right, max);
+            return present(index) ? index : -1;
+        }
+    }
+
+    /**
+     * @return the size of the index file of the years
+     */
+    static long fileSize(int years) {
+        return HEADER_SIZE + seriesSize(years * RainfallRecord.MONTHS) + (1 + SEASONS) * seriesSize(years);
+    }
+
+    /**
+     * @return the most years whose index file is at most Integer.MAX_VALUE bytes, the file size grows with the years
+     */
+    private static int maxYears() {
+        int low = 0;
+        int high = Integer.MAX_VALUE / RainfallRecord.MONTHS;
+        while (low < high) {
+            int middle = (int) (((long) low + high + 1) / 2);
+            if (fileSize(middle) <= Integer.MAX_VALUE)
+                low = middle;
+            else
+                high = middle - 1;
+        }
+        return low;
+    }
+
+    private static long seriesSize(int length) {
+        return 4L * length + 4L * (length + 1) + 8L * (length + 1) + 2 * 4L * levels(length) * length;
+    }
+
+    private static int levels(int length) {
+        return length == 0 ? 0 : 32 - Integer.numberOfLeadingZeros(length);
+    }
+
+    private interface Values {
+        int get(int i);
+    }
+
+    private interface Presence {
+        boolean get(int i);
+    }
+
+    /**
+     * @return the better of two positions: a present one, then the greater (or lower) value, then the earlier
+     */
+    private static int better(Values values, Presence presence, int a, int b, boolean max) {
+        if (presence.get(a) != presence.get(b))
+            return presence.get(a) ? a : b;
+        int va = values.get(a);
+        int vb = values.get(b);
+        if (va == vb)
+            return Math.min(a, b);
+        return (max ? va > vb : va < vb) ? a : b;
+    }
+
+    /**
+     * A class represent an index builder, rows of the same year are summed like the year totals
+     */
+    public static class Builder {
+        private final TreeMap<Integer, int[]> monthsByYear = new TreeMap<>();
+
+        public void add(RainfallRecord row) {
+            int[] values = monthsByYear.computeIfAbsent(row.getYear(), year -> new int[RainfallRecord.MONTHS]);
+            for (int i = 0; i < RainfallRecord.MONTHS; i++)
+                values[i] += row.getMonth(i);
+        }
+
+        /**
+         * Write the index file through a read write mapping
+         * @param file - the index file, replaced if it exists
+         */
+        public void write(Path file) throws IOException {
+            int firstYear = monthsByYear.isEmpty() ? 0 : monthsByYear.firstKey();
+            long span = monthsByYear.isEmpty() ? 0 : (long) monthsByYear.lastKey() - firstYear + 1;
+            //the index is a single mapping, addressed with int positions
+            if (span > MAX_YEARS)
+                throw new IOException("The year range " + span + " is too large for the index, the limit is "
+                        + MAX_YEARS + " years");
+            int years = (int) span;
+            int[] monthValues = new int[years * RainfallRecord.MONTHS];
+            boolean[] monthPresent = new boolean[monthValues.length];
+            int[] yearValues = new int[years];
+            boolean[] yearPresent = new boolean[years];
+            int[][] seasonValues = new int[SEASONS][years];
+            for (Map.Entry<Integer, int[]> entry : monthsByYear.entrySet()) {
+                int y = entry.getKey() - firstYear;
+                yearPresent[y] = true;
+                for (int i = 0; i < RainfallRecord.MONTHS; i++) {
+                    int value = entry.getValue()[i];
+                    monthValues[y * RainfallRecord.MONTHS + i] = value;
+                    monthPresent[y * RainfallRecord.MONTHS + i] = true;
+                    yearValues[y] += value;
+                    seasonValues[SeasonKey.seasonOf(i)][y] += value;
+                }
+            }
+
+            long size = fileSize(years);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                out.put(MAGIC).put(VERSION).putInt(firstYear).putInt(years);
+                putSeries(out, monthValues, monthPresent);
+                putSeries(out, yearValues, yearPresent);
+                for (int season = 0; season < SEASONS; season++)
+                    putSeries(out, seasonValues[season], yearPresent);
+                out.force();
+            }
+        }
+
+        private static void putSeries(ByteBuffer out, int[] values, boolean[] present) {
+            int length = values.length;
+            for (int value : values)
+                out.putInt(value);
+            int count = 0;
+            out.putInt(count);
+            for (boolean p : present)
+                out.putInt(p ? ++count : count);
+            long sum = 0;
+            out.putLong(sum);
+            for (int value : values)
+                out.putLong(sum += value);
+            for (boolean max : new boolean[]{true, false}) {
+                int[] level = new int[length];
+                for (int i = 0; i < length; i++)
+                    level[i] = i;
+                for (int k = 0; k < levels(length); k++) {
+                    for (int position : level)
+                        out.putInt(position);
+                    //level k + 1 covers 2^(k + 1) values, the positions past the end keep level k
+                    int half = 1 << k;
+                    int[] next = level.clone();
+                    for (int i = 0; i + 2 * half <= length; i++)
+                        next[i] = better(j -> values[j], j -> present[j], level[i], level[i + half], max);
+                    level = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Build the index of a parsed data file
+     * args: the parsed data file or directory, the index file (RainfallIndex.bin by default) and --binary
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0)
+            throw new IllegalArgumentException("Usage: <parsed data file> [index file] [--binary]");
+        boolean binary = false;
+        String indexFile = FILE_NAME;
+        for (int i = 1; i < args.length; i++) {
+            if ("--binary".equals(args[i]))
+                binary = true;
+            else
+                indexFile = args[i];
+        }
+        long start = System.nanoTime();
+        Builder builder = new Builder();
+        new LocalRainfallEngine(new Configuration()).scan(new org.apache.hadoop.fs.Path(args[0]), binary, builder::add);
+        builder.write(Paths.get(indexFile));
+        RainfallIndex index = open(Paths.get(indexFile));
+        System.out.println(String.format("Indexed the years %d to %d in %d ms", index.getFirstYear(),
+                index.getLastYear(), (System.nanoTime() - start) / 1000000));
+    }
+}
@@ -0,0 +1,29 @@
+package org.example;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+
+/**
+ * A class represent the input format of the binary parsed data file,
+ * the files are split on sync markers and the mappers get (offset, record) pairs.
+ * The records may also come from a block compressed SequenceFile, which splits on its own sync markers,
+ * or from a file compressed with a codec of its extension, which is read as one split
+ */
+public class RainfallInputFormat extends FileInputFormat<LongWritable, RainfallRecord> {
+
+    @Override
+    public RecordReader<LongWritable, RainfallRecord> createRecordReader(InputSplit split, TaskAttemptContext context) {
+        return new RainfallRecordReader();
+    }
+
+    @Override
+    protected boolean isSplitable(JobContext context, Path file) {
+        return new CompressionCodecFactory(context.getConfiguration()).getCodec(file) == null;
+    }
+}
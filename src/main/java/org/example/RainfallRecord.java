@@ -0,0 +1,192 @@
+package org.example;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A class represent a parsed data file row: the station, the year, the 12 monthly rainfall values and the year average.
+ * The rows of a single series have no station column, their station is NO_STATION
+ */
+public class RainfallRecord implements Writable {
+
+    public static final int MONTHS = 12;
+    //station + year + 12 months + average, 4 bytes each
+    public static final int SIZE = (MONTHS + 3) * 4;
+    public static final int NO_STATION = 0;
+
+    private int station;
+    private int year;
+    private final int[] months = new int[MONTHS];
+    private int average;
+    //reused for every parsed line
+    private final FieldScanner scanner = new FieldScanner();
+    private final byte[] digits = new byte[11];
+
+    public int getStation() {
+        return station;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    /**
+     * @param month - the month index, 0 for January
+     * @return the rainfall value of the month
+     */
+    public int getMonth(int month) {
+        return months[month];
+    }
+
+    /**
+     * Set the text to the decimal year without building a string
+     * @param text - the text to set
+     */
+    public void copyYearTo(Text text) {
+        long value = year;
+        boolean negative = value < 0;
+        if (negative)
+            value = -value;
+        int start = digits.length;
+        do {
+            digits[--start] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        if (negative)
+            digits[--start] = '-';
+        text.set(digits, start, digits.length - start);
+    }
+
+    public int getAverage() {
+        return average;
+    }
+
+    /**
+     * @return the rainfall sum of the 12 months
+     */
+    public int getSum() {
+        int sum = 0;
+        for (int value : months)
+            sum += value;
+        return sum;
+    }
+
+    public void set(int year, int[] months, int average) {
+        set(NO_STATION, year, months, average);
+    }
+
+    public void set(int station, int year, int[] months, int average) {
+        this.station = station;
+        this.year = year;
+        System.arraycopy(months, 0, this.months, 0, MONTHS);
+        this.average = average;
+    }
+
+    /**
+     * Parse a line of the parsed data file into this record
+     * @param line - the space separated line, the station column is optional
+     * @return false if the line does not hold a year, 12 months and the average, or holds more fields than a station
+     */
+    public boolean parse(Text line) {
+        //the ints are decoded from the line bytes, no string is built
+        scanner.reset(line);
+        try {
+            station = NO_STATION;
+            year = scanner.nextInt();
+            for (int i = 0; i < MONTHS; i++)
+                months[i] = scanner.nextInt();
+            average = scanner.nextInt();
+            //a 15th field means the line starts with the station, shift the fields by one
+            if (scanner.hasNext()) {
+                station = year;
+                year = months[0];
+                System.arraycopy(months, 1, months, 0, MONTHS - 1);
+                months[MONTHS - 1] = average;
+                average = scanner.nextInt();
+            }
+            //more fields would make the station column a guess, like parseCsv the line is malformed
+            if (scanner.hasNext())
+                return false;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parse a line of the csv data file into this record, the year average is computed like the data file parser
+     * @param line - the comma separated line, the station column is optional
+     * @return false if the line does not hold a year and 12 months, holds more fields than a station
+     * or holds an empty field
+     */
+    public boolean parseCsv(Text line) {
+        scanner.resetCsv(line);
+        try {
+            station = NO_STATION;
+            year = scanner.nextInt();
+            for (int i = 0; i < MONTHS; i++)
+                months[i] = scanner.nextInt();
+            //a 14th field means the line starts with the station, shift the fields by one
+            if (scanner.hasNext()) {
+                station = year;
+                year = months[0];
+                System.arraycopy(months, 1, months, 0, MONTHS - 1);
+                months[MONTHS - 1] = scanner.nextInt();
+            }
+            if (scanner.hasNext())
+                return false;
+            int sum = 0;
+            for (int value : months)
+                sum += value;
+            average = sum / MONTHS;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Get the record of a mapper input value, text lines are parsed into the reusable record
+     * @param value - the map input value, a text line or a record
+     * @param reuse - the record that text lines are parsed into
+     * @return the record or null if the line is malformed
+     */
+    public static RainfallRecord of(Writable value, RainfallRecord reuse) {
+        if (value instanceof RainfallRecord)
+            return (RainfallRecord) value;
+        return reuse.parse((Text) value) ? reuse : null;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(station);
+        out.writeInt(year);
+        for (int value : months)
+            out.writeInt(value);
+        out.writeInt(average);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        station = in.readInt();
+        year = in.readInt();
+        for (int i = 0; i < MONTHS; i++)
+            months[i] = in.readInt();
+        average = in.readInt();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder();
+        if (station != NO_STATION)
+            stringBuilder.append(station).append(" ");
+        stringBuilder.append(year);
+        for (int value : months)
+            stringBuilder.append(" ").append(value);
+        return stringBuilder.append(" ").append(average).toString();
+    }
+}
@@ -0,0 +1,179 @@
+package org.example;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.io.compress.Decompressor;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileRecordReader;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A class represent a record reader of the binary parsed data file.
+ * A split reads every block whose sync marker starts inside the split.
+ * A file compressed with a codec is one split read to its end, a SequenceFile of records
+ * is read by the SequenceFile reader
+ */
+public class RainfallRecordReader extends RecordReader<LongWritable, RainfallRecord> {
+
+    //the first bytes of a SequenceFile
+    private static final byte[] SEQUENCE_MAGIC = {'S', 'E', 'Q'};
+
+    private FSDataInputStream fileIn;
+    private DataInputStream in;
+    private Decompressor decompressor;
+    private SequenceFileRecordReader<LongWritable, RainfallRecord> sequence;
+    private long records;
+    private byte[] sync;
+    private long start;
+    private long end;
+    private long length;
+    private int remaining;
+    private final LongWritable key = new LongWritable();
+    private final RainfallRecord value = new RainfallRecord();
+
+    @Override
+    public void initialize(InputSplit genericSplit, TaskAttemptContext context)
+            throws IOException, InterruptedException {
+        FileSplit split = (FileSplit) genericSplit;
+        Path file = split.getPath();
+        FileSystem fs = file.getFileSystem(context.getConfiguration());
+        length = fs.getFileStatus(file).getLen();
+        fileIn = fs.open(file);
+        CompressionCodec codec = new CompressionCodecFactory(context.getConfiguration()).getCodec(file);
+        if (codec != null) {
+            //a compressed file is not split, the blocks are read in order up to the end of the stream
+            decompressor = CodecPool.getDecompressor(codec);
+            in = new DataInputStream(codec.createInputStream(fileIn, decompressor));
+            sync = RainfallBinaryFormat.readHeader(in);
+            end = Long.MAX_VALUE;
+            return;
+        }
+        if (isSequenceFile()) {
+            fileIn.close();
+            fileIn = null;
+            sequence = new SequenceFileRecordReader<>();
+            sequence.initialize(split, context);
+            return;
+        }
+        in = fileIn;
+        sync = RainfallBinaryFormat.readHeader(in);
+        start = Math.max(split.getStart(), RainfallBinaryFormat.HEADER_SIZE);
+        end = split.getStart() + split.getLength();
+        fileIn.seek(findSync(start));
+    }
+
+    private boolean isSequenceFile() throws IOException {
+        if (length < SEQUENCE_MAGIC.length)
+            return false;
+        byte[] magic = new byte[SEQUENCE_MAGIC.length];
+        fileIn.readFully(0, magic);
+        return Arrays.equals(magic, SEQUENCE_MAGIC);
+    }
+
+    /**
+     * Find the first sync marker starting at or after the position
+     * @return the position of the sync marker or the file length if there is none
+     */
+    private long findSync(long position) throws IOException {
+        if (position + RainfallBinaryFormat.SYNC_SIZE > length)
+            return length;
+        fileIn.seek(position);
+        byte[] window = new byte[RainfallBinaryFormat.SYNC_SIZE];
+        in.readFully(window);
+        long syncStart = position;
+        //slide the window one byte at a time until it matches the sync marker
+        while (!Arrays.equals(window, sync)) {
+            if (syncStart + RainfallBinaryFormat.SYNC_SIZE >= length)
+                return length;
+            System.arraycopy(window, 1, window, 0, window.length - 1);
+            window[window.length - 1] = in.readByte();
+            syncStart++;
+        }
+        return syncStart;
+    }
+
+    @Override
+    public boolean nextKeyValue() throws IOException, InterruptedException {
+        if (sequence != null)
+            return sequence.nextKeyValue();
+        if (remaining == 0) {
+            byte[] marker = new byte[RainfallBinaryFormat.SYNC_SIZE];
+            long position;
+            if (decompressor != null) {
+                //the compressed stream ends after the last block
+                position = records;
+                int first = in.read();
+                if (first < 0)
+                    return false;
+                marker[0] = (byte) first;
+                in.readFully(marker, 1, marker.length - 1);
+            } else {
+                //a block belongs to this split only if its sync marker starts before the split end
+                position = fileIn.getPos();
+                if (position >= end || position >= length)
+                    return false;
+                in.readFully(marker);
+            }
+            if (!Arrays.equals(marker, sync))
+                throw new IOException("Corrupt binary rainfall data file, missing sync marker at " + position);
+            remaining = in.readInt();
+            if (remaining == 0)
+                return nextKeyValue();
+        }
+        //the key of a compressed file is the record number, there is no seekable offset
+        key.set(decompressor != null ? records : fileIn.getPos());
+        value.readFields(in);
+        records++;
+        remaining--;
+        return true;
+    }
+
+    @Override
+    public LongWritable getCurrentKey() {
+        return sequence != null ? sequence.getCurrentKey() : key;
+    }
+
+    @Override
+    public RainfallRecord getCurrentValue() {
+        return sequence != null ? sequence.getCurrentValue() : value;
+    }
+
+    @Override
+    public float getProgress() throws IOException {
+        if (sequence != null)
+            return sequence.getProgress();
+        if (decompressor != null)
+            return length == 0 ? 1.0f : Math.min(1.0f, fileIn.getPos() / (float) length);
+        if (end <= start)
+            return 1.0f;
+        return Math.min(1.0f, (fileIn.getPos() - start) / (float) (end - start));
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (sequence != null)
+                sequence.close();
+            if (in != null)
+                in.close();
+            else if (fileIn != null)
+                fileIn.close();
+        } finally {
+            if (decompressor != null) {
+                CodecPool.returnDecompressor(decompressor);
+                decompressor = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package org.example;
+
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A class represent a typed result of the statistics jobs, written instead of the result sentences by "--structured".
+ * The SequenceFile form holds the fields, the JSON lines form is toString() with stable field names:
+ * statistic, rule, year, month, season, value, years and averages, e.g.
+ * {"statistic":"max_month","year":1954,"month":8,"value":300} or
+ * {"statistic":"drought","rule":"mean:100:3","years":[1961,1962,1963],"averages":[101,135,146]}
+ */
+public class RainfallResult implements Writable {
+
+    /**
+     * The kinds of results, the JSON name is the lower case name
+     */
+    public enum Statistic {
+        YEAR_TOTAL, MAX_YEAR, MIN_YEAR, MAX_MONTH, MIN_MONTH, SEASON_TOTAL, MAX_SEASON, MIN_SEASON,
+        MULTI_ANNUAL_AVERAGE, MULTI_ANNUAL_MEDIAN, DROUGHT;
+
+        private final String jsonName = name().toLowerCase();
+
+        public String getJsonName() {
+            return jsonName;
+        }
+    }
+
+    private static final Statistic[] STATISTICS = Statistic.values();
+
+    private Statistic statistic = Statistic.YEAR_TOTAL;
+    //the drought rule of a baseline or a drought, "" for none
+    private String rule = "";
+    private int year;
+    //the month (1 to 12) or the season (SeasonKey) of the year, 0 for none
+    private int period;
+    private long value;
+    private int count;
+    private int[] years = new int[0];
+    private int[] averages = new int[0];
+
+    /**
+     * Set a result of a year, a month (1 to 12) of a year or a season of a year
+     */
+    public RainfallResult set(Statistic statistic, int year, int period, long value) {
+        this.statistic = statistic;
+        this.rule = "";
+        this.year = year;
+        this.period = period;
+        this.value = value;
+        this.count = 0;
+        return this;
+    }
+
+    /**
+     * Set the baseline of a drought rule, the multi annual average or median
+     */
+    public RainfallResult setBaseline(Statistic statistic, String rule, long value) {
+        set(statistic, 0, 0, value);
+        this.rule = rule;
+        return this;
+    }
+
+    /**
+     * Set a drought of a rule, the years from start (inclusive) to end (exclusive)
+     */
+    public RainfallResult setDrought(String rule, int[] years, int[] averages, int start, int end) {
+        set(Statistic.DROUGHT, 0, 0, 0);
+        this.rule = rule;
+        count = end - start;
+        if (this.years.length < count) {
+            this.years = new int[count];
+            this.averages = new int[count];
+        }
+        System.arraycopy(years, start, this.years, 0, count);
+        System.arraycopy(averages, start, this.averages, 0, count);
+        return this;
+    }
+
+    public Statistic getStatistic() {
+        return statistic;
+    }
+
+    public String getRule() {
+        return rule;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getPeriod() {
+        return period;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    /**
+     * @return the years of a drought
+     */
+    public int[] getYears() {
+        return Arrays.copyOf(years, count);
+    }
+
+    /**
+     * @return the average of each year of a drought
+     */
+    public int[] getAverages() {
+        return Arrays.copyOf(averages, count);
+    }
+
+    /**
+     * @return the size of the serialized result
+     */
+    public int getSize() {
+        return 1 + 2 + rule.length() + 4 + 4 + 8 + 4 + 8 * count;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(statistic.ordinal());
+        out.writeUTF(rule);
+        out.writeInt(year);
+        out.writeInt(period);
+        out.writeLong(value);
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            out.writeInt(years[i]);
+            out.writeInt(averages[i]);
+        }
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        statistic = STATISTICS[in.readByte()];
+        rule = in.readUTF();
+        year = in.readInt();
+        period = in.readInt();
+        value = in.readLong();
+        count = in.readInt();
+        if (years.length < count) {
+            years = new int[count];
+            averages = new int[count];
+        }
+        for (int i = 0; i < count; i++) {
+            years[i] = in.readInt();
+            averages[i] = in.readInt();
+        }
+    }
+
+    /**
+     * @return the JSON object of the result, the fields of its statistic only
+     */
+    @Override
+    public String toString() {
+        StringBuilder json = new StringBuilder("{\"statistic\":\"").append(statistic.getJsonName()).append('"');
+        //the rules are "baseline:percent:years", nothing to escape
+        if (!rule.isEmpty())
+            json.append(",\"rule\":\"").append(rule).append('"');
+        switch (statistic) {
+            case MULTI_ANNUAL_AVERAGE:
+            case MULTI_ANNUAL_MEDIAN:
+                json.append(",\"value\":").append(value);
+                break;
+            case DROUGHT:
+                appendArray(json.append(",\"years\":"), years);
+                appendArray(json.append(",\"averages\":"), averages);
+                break;
+            case MAX_MONTH:
+            case MIN_MONTH:
+                json.append(",\"year\":").append(year).append(",\"month\":").append(period);
+                json.append(",\"value\":").append(value);
+                break;
+            case SEASON_TOTAL:
+            case MAX_SEASON:
+            case MIN_SEASON:
+                json.append(",\"year\":").append(year).append(",\"season\":\"")
+                        .append(SeasonKey.nameOf((byte) period)).append('"');
+                json.append(",\"value\":").append(value);
+                break;
+            default:
+                json.append(",\"year\":").append(year).append(",\"value\":").append(value);
+        }
+        return json.append('}').toString();
+    }
+
+    private void appendArray(StringBuilder json, int[] values) {
+        json.append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0)
+                json.append(',');
+            json.append(values[i]);
+        }
+        json.append(']');
+    }
+}
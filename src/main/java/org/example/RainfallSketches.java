@@ -0,0 +1,160 @@
+package org.example;
+
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A class represent the bounded, mergeable extremes of the rows: the top K wettest and driest months,
+ * row seasons and rows and a quantile sketch of the monthly values. A row season or a row is the sum of
+ * the months of one row, not the total of a year over several rows or stations, so a mapper builds the
+ * sketches of its rows alone and the reducer merges one small record per mapper.
+ * The labels start with "station:" when the rows have a station column
+ */
+public class RainfallSketches implements Writable {
+
+    public static final int DEFAULT_TOP = 20;
+
+    private static final int YEAR_PERIOD = 0;
+
+    private TopK wettestMonths;
+    private TopK driestMonths;
+    private TopK wettestSeasons;
+    private TopK driestSeasons;
+    private TopK wettestYears;
+    private TopK driestYears;
+    private QuantileSketch months;
+    private final int[] seasons = new int[4];
+
+    public RainfallSketches() {
+        this(DEFAULT_TOP, QuantileSketch.DEFAULT_SIZE);
+    }
+
+    /**
+     * @param top - the amount of extremes of each kind
+     * @param sketchSize - the level capacity of the quantile sketch
+     */
+    public RainfallSketches(int top, int sketchSize) {
+        wettestMonths = new TopK(top, true);
+        driestMonths = new TopK(top, false);
+        wettestSeasons = new TopK(top, true);
+        driestSeasons = new TopK(top, false);
+        wettestYears = new TopK(top, true);
+        driestYears = new TopK(top, false);
+        months = new QuantileSketch(sketchSize);
+    }
+
+    public void add(RainfallRecord row) {
+        int station = row.getStation();
+        int year = row.getYear();
+        int sum = 0;
+        for (int i = 0; i < seasons.length; i++)
+            seasons[i] = 0;
+        for (int i = 0; i < RainfallRecord.MONTHS; i++) {
+            int value = row.getMonth(i);
+            wettestMonths.add(value, station, year, i + 1);
+            driestMonths.add(value, station, year, i + 1);
+            months.add(value);
+            seasons[SeasonKey.seasonOf(i)] += value;
+            sum += value;
+        }
+        for (byte season = 0; season < seasons.length; season++) {
+            wettestSeasons.add(seasons[season], station, year, season);
+            driestSeasons.add(seasons[season], station, year, season);
+        }
+        wettestYears.add(sum, station, year, YEAR_PERIOD);
+        driestYears.add(sum, station, year, YEAR_PERIOD);
+    }
+
+    public void merge(RainfallSketches other) {
+        wettestMonths.merge(other.wettestMonths);
+        driestMonths.merge(other.driestMonths);
+        wettestSeasons.merge(other.wettestSeasons);
+        driestSeasons.merge(other.driestSeasons);
+        wettestYears.merge(other.wettestYears);
+        driestYears.merge(other.driestYears);
+        months.merge(other.months);
+    }
+
+    /**
+     * @return the amount of monthly values
+     */
+    public long getMonths() {
+        return months.getCount();
+    }
+
+    public int monthQuantile(double fraction) {
+        return months.quantile(fraction);
+    }
+
+    /**
+     * @param quantiles - the quantiles of the monthly values to report, e.g. 0.05, 0.5 and 0.95
+     * @return "kind rank \t label \t value" lines, the best first, then "month quantile q \t value" lines
+     */
+    public List<String> lines(double[] quantiles) {
+        List<String> lines = new ArrayList<>();
+        lines.add("months\t" + months.getCount());
+        addMonths(lines, "wettest month", wettestMonths);
+        addMonths(lines, "driest month", driestMonths);
+        addSeasons(lines, "wettest row season", wettestSeasons);
+        addSeasons(lines, "driest row season", driestSeasons);
+        addYears(lines, "wettest row", wettestYears);
+        addYears(lines, "driest row", driestYears);
+        for (double quantile : quantiles)
+            lines.add("month quantile " + quantile + "\t" + months.quantile(quantile));
+        return lines;
+    }
+
+    private static void addMonths(List<String> lines, String kind, TopK top) {
+        int rank = 1;
+        for (TopK.Entry entry : top.entries())
+            lines.add(kind + " " + rank++ + "\t" + station(entry) + entry.getPeriod() + "/" + entry.getYear()
+                    + "\t" + entry.getValue());
+    }
+
+    private static void addSeasons(List<String> lines, String kind, TopK top) {
+        int rank = 1;
+        for (TopK.Entry entry : top.entries())
+            lines.add(kind + " " + rank++ + "\t" + station(entry) + new SeasonKey(entry.getYear(),
+                    (byte) entry.getPeriod()) + "\t" + entry.getValue());
+    }
+
+    private static void addYears(List<String> lines, String kind, TopK top) {
+        int rank = 1;
+        for (TopK.Entry entry : top.entries())
+            lines.add(kind + " " + rank++ + "\t" + station(entry) + entry.getYear() + "\t" + entry.getValue());
+    }
+
+    /**
+     * @return the "station:" prefix of a label, empty for a single series
+     */
+    private static String station(TopK.Entry entry) {
+        return entry.getStation() == RainfallRecord.NO_STATION ? "" : entry.getStation() + ":";
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        wettestMonths.write(out);
+        driestMonths.write(out);
+        wettestSeasons.write(out);
+        driestSeasons.write(out);
+        wettestYears.write(out);
+        driestYears.write(out);
+        months.write(out);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        wettestMonths.readFields(in);
+        driestMonths.readFields(in);
+        wettestSeasons.readFields(in);
+        driestSeasons.readFields(in);
+        wettestYears.readFields(in);
+        driestYears.readFields(in);
+        months.readFields(in);
+    }
+}
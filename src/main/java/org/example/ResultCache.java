@@ -0,0 +1,255 @@
+package org.example;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileChecksum;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FileUtil;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.DataOutputBuffer;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * A class represent a content addressed cache of job outputs, enabled by "--cache directory".
+ * An entry is a copy of an output directory named by the fingerprint of the run: the job, the flags and the
+ * path, size, modification time and content checksum of every input file. A run with the fingerprint of an
+ * entry copies the entry into its output instead of running. The entries used least recently are deleted
+ * when the cache grows over "--cache-max-bytes"
+ */
+public class ResultCache {
+
+    //bumped when the fingerprint or the entry layout changes
+    static final int VERSION = 1;
+    static final long DEFAULT_MAX_BYTES = 1024L * 1024 * 1024;
+    //the bytes read at the start, the middle and the end of a file without a file system checksum
+    static final int SAMPLE_BYTES = 64 * 1024;
+    //the time of the last use of an entry, rewritten on every hit
+    static final String USED_FILE = "_used";
+
+    //the flags that do not change the output
+    private static final List<String> IGNORED_FLAGS = Arrays.asList("--cache", "--cache-max-bytes", "--report");
+
+    private final String job;
+    private final JobOptions options;
+    private final Configuration conf;
+    private final Path directory;
+    private final long maxBytes;
+    private String fingerprint;
+
+    ResultCache(String job, JobOptions options, Configuration conf, Path directory, long maxBytes) {
+        this.job = job;
+        this.options = options;
+        this.conf = conf;
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param job - the name of the job, e.g. the driver class name
+     * @return the cache of the "--cache" directory, a cache that never hits without the flag
+     */
+    public static ResultCache open(String job, JobOptions options, Configuration conf) {
+        String directory = options.get("--cache", null);
+        return new ResultCache(job, options, conf, directory == null ? null : new Path(directory),
+                Long.parseLong(options.get("--cache-max-bytes", Long.toString(DEFAULT_MAX_BYTES))));
+    }
+
+    /**
+     * Copy the cached output of the run into the output directory
+     * @return true if the output was restored and the job does not need to run
+     */
+    public boolean restore(RunReport report) throws IOException {
+        if (directory == null)
+            return false;
+        long start = System.nanoTime();
+        fingerprint = fingerprint();
+        Path entry = new Path(directory, fingerprint);
+        Path output = new Path(options.getOutput());
+        FileSystem fs = directory.getFileSystem(conf);
+        boolean hit = fs.exists(entry);
+        if (hit) {
+            FileSystem outputFs = output.getFileSystem(conf);
+            if (outputFs.exists(output))
+                throw new IOException("Output directory " + output + " already exists");
+            try {
+                copy(fs, entry, outputFs, output);
+                touch(fs, entry);
+            } catch (FileNotFoundException e) {
+                //another run evicted the entry while it was copied
+                outputFs.delete(output, true);
+                hit = false;
+            }
+        }
+        report.counter(hit ? RainfallCounters.CACHE_HITS : RainfallCounters.CACHE_MISSES, 1);
+        report.phase("cache", System.nanoTime() - start);
+        return hit;
+    }
+
+    /**
+     * Copy the output of a successful run into the cache and evict the entries used least recently
+     * when the cache is over its budget. An output larger than the budget, or the output of a run whose
+     * input changed while it ran, is not cached
+     */
+    public void store(RunReport report) throws IOException {
+        if (directory == null || fingerprint == null)
+            return;
+        long start = System.nanoTime();
+        Path output = new Path(options.getOutput());
+        FileSystem outputFs = output.getFileSystem(conf);
+        FileSystem fs = directory.getFileSystem(conf);
+        Path entry = new Path(directory, fingerprint);
+        if (!fs.exists(entry) && outputFs.getContentSummary(output).getLength() <= maxBytes
+                && fingerprint.equals(fingerprint())) {
+            //the entry is copied under a temporary name and renamed, a reader never sees a partial entry
+            Path temp = new Path(directory, "." + fingerprint + "." + UUID.randomUUID() + ".tmp");
+            try {
+                copy(outputFs, output, fs, temp);
+                touch(fs, temp);
+                fs.mkdirs(directory);
+                //a rename onto an existing directory moves the entry into it
+                if (fs.exists(entry) || !fs.rename(temp, entry))
+                    fs.delete(temp, true);
+            } catch (IOException e) {
+                fs.delete(temp, true);
+                throw e;
+            }
+            evict(fs);
+        }
+        report.phase("cache", System.nanoTime() - start);
+    }
+
+    /**
+     * @return the hex SHA-256 of the job, the flags that change the output and the input files
+     */
+    String fingerprint() throws IOException {
+        DataOutputBuffer key = new DataOutputBuffer();
+        key.writeInt(VERSION);
+        key.writeUTF(job);
+        for (Map.Entry<String, String> flag : options.getFlags().entrySet()) {
+            if (IGNORED_FLAGS.contains(flag.getKey()))
+                continue;
+            key.writeUTF(flag.getKey());
+            key.writeUTF(flag.getValue());
+        }
+        Path input = new Path(options.getInput());
+        FileSystem fs = input.getFileSystem(conf);
+        FileStatus status = fs.getFileStatus(input);
+        FileStatus[] files = status.isDir() ? fs.listStatus(input) : new FileStatus[]{status};
+        Arrays.sort(files);
+        for (FileStatus file : files) {
+            //skip the hidden files like the file input format does
+            String name = file.getPath().getName();
+            if (file.isDir() || name.startsWith("_") || name.startsWith("."))
+                continue;
+            key.writeUTF(file.getPath().toString());
+            key.writeLong(file.getLen());
+            key.writeLong(file.getModificationTime());
+            checksum(fs, file, key);
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(Arrays.copyOf(key.getData(), key.getLength()));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest)
+                hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Write the checksum of a file: the file system checksum when there is one (e.g. the block checksums
+     * of HDFS), else the CRC32 of the start, the middle and the end of the file
+     */
+    private static void checksum(FileSystem fs, FileStatus file, DataOutputBuffer key) throws IOException {
+        FileChecksum checksum = fs.getFileChecksum(file.getPath());
+        if (checksum != null) {
+            key.writeUTF(checksum.getAlgorithmName());
+            key.write(checksum.getBytes());
+            return;
+        }
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[SAMPLE_BYTES];
+        long length = file.getLen();
+        try (FSDataInputStream in = fs.open(file.getPath())) {
+            for (long position : new long[]{0, length / 2 - SAMPLE_BYTES / 2, length - SAMPLE_BYTES}) {
+                position = Math.max(0, position);
+                int bytes = (int) Math.min(SAMPLE_BYTES, length - position);
+                in.readFully(position, buffer, 0, bytes);
+                crc.update(buffer, 0, bytes);
+            }
+        }
+        key.writeLong(crc.getValue());
+    }
+
+    /**
+     * Copy the files of a directory, except the run report and the last use of an entry
+     */
+    private void copy(FileSystem sourceFs, Path source, FileSystem targetFs, Path target) throws IOException {
+        targetFs.mkdirs(target);
+        for (FileStatus file : sourceFs.listStatus(source)) {
+            String name = file.getPath().getName();
+            if (name.equals(RunReport.FILE_NAME) || name.equals(USED_FILE))
+                continue;
+            if (!FileUtil.copy(sourceFs, file.getPath(), targetFs, new Path(target, name), false, conf))
+                throw new IOException("Failed to copy " + file.getPath() + " to " + target);
+        }
+    }
+
+    private static void touch(FileSystem fs, Path entry) throws IOException {
+        try (FSDataOutputStream out = fs.create(new Path(entry, USED_FILE), true)) {
+            out.write(Long.toString(System.currentTimeMillis()).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * @return the time of the last use of an entry, 0 if it is unknown
+     */
+    private static long lastUsed(FileSystem fs, Path entry) {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(fs.open(new Path(entry, USED_FILE)),
+                StandardCharsets.UTF_8))) {
+            return Long.parseLong(in.readLine().trim());
+        } catch (IOException | RuntimeException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Delete the entries used least recently until the cache fits in its budget
+     */
+    private void evict(FileSystem fs) throws IOException {
+        List<Path> entries = new ArrayList<>();
+        List<long[]> usage = new ArrayList<>();
+        long total = 0;
+        for (FileStatus status : fs.listStatus(directory)) {
+            //the temporary entries of running stores are hidden
+            if (!status.isDir() || status.getPath().getName().startsWith("."))
+                continue;
+            long size = fs.getContentSummary(status.getPath()).getLength();
+            usage.add(new long[]{lastUsed(fs, status.getPath()), size, entries.size()});
+            entries.add(status.getPath());
+            total += size;
+        }
+        usage.sort(Comparator.comparingLong(entry -> entry[0]));
+        for (int i = 0; i < usage.size() && total > maxBytes; i++) {
+            fs.delete(entries.get((int) usage.get(i)[2]), true);
+            total -= usage.get(i)[1];
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.example;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.CounterGroup;
+import org.apache.hadoop.mapreduce.Job;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A class represent the machine readable report of a run: the start time, the elapsed time,
+ * the time of each phase (e.g. each job) and the counters by group, written as a JSON object.
+ * The counters of a run made of several jobs are summed over the jobs
+ */
+public class RunReport {
+
+    //the report is a hidden file of the output directory, like _SUCCESS
+    public static final String FILE_NAME = "_report.json";
+
+    private final String name;
+    private final Instant startTime = Instant.now();
+    private final long start = System.nanoTime();
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final Map<String, Map<String, Long>> counters = new LinkedHashMap<>();
+    private boolean succeeded = true;
+
+    public RunReport(String name) {
+        this.name = name;
+    }
+
+    public RunReport phase(String phase, long nanos) {
+        phases.merge(phase, nanos, Long::sum);
+        return this;
+    }
+
+    public RunReport counter(String group, String counter, long value) {
+        counters.computeIfAbsent(group, g -> new LinkedHashMap<>()).merge(counter, value, Long::sum);
+        return this;
+    }
+
+    public RunReport counter(Enum<?> counter, long value) {
+        return counter(counter.getDeclaringClass().getName(), counter.name(), value);
+    }
+
+    /**
+     * Run a job as a phase of the report and add its counters
+     * @return true if the job succeeded
+     */
+    public boolean run(Job job) throws Exception {
+        long jobStart = System.nanoTime();
+        boolean status = job.waitForCompletion(true);
+        phase(job.getJobName(), System.nanoTime() - jobStart);
+        for (CounterGroup group : job.getCounters()) {
+            for (Counter counter : group)
+                counter(group.getName(), counter.getName(), counter.getValue());
+        }
+        succeeded &= status;
+        return status;
+    }
+
+    public void setSucceeded(boolean succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"name\": ").append(quote(name)).append(",\n");
+        json.append("  \"status\": ").append(quote(succeeded ? "SUCCEEDED" : "FAILED")).append(",\n");
+        json.append("  \"startTime\": ").append(quote(startTime.toString())).append(",\n");
+        json.append("  \"elapsedNanos\": ").append(System.nanoTime() - start).append(",\n");
+        json.append("  \"phases\": {");
+        appendValues(json, phases, "    ");
+        json.append("},\n  \"counters\": {");
+        String separator = "\n";
+        for (Map.Entry<String, Map<String, Long>> group : counters.entrySet()) {
+            json.append(separator).append("    ").append(quote(group.getKey())).append(": {");
+            appendValues(json, group.getValue(), "      ");
+            json.append("}");
+            separator = ",\n";
+        }
+        json.append(counters.isEmpty() ? "" : "\n  ").append("}\n}\n");
+        return json.toString();
+    }
+
+    private static void appendValues(StringBuilder json, Map<String, Long> values, String indent) {
+        String separator = "\n";
+        for (Map.Entry<String, Long> entry : values.entrySet()) {
+            json.append(separator).append(indent).append(quote(entry.getKey())).append(": ").append(entry.getValue());
+            separator = ",\n";
+        }
+        if (!values.isEmpty())
+            json.append("\n").append(indent, 0, indent.length() - 2);
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\')
+                quoted.append('\\').append(c);
+            else if (c < 0x20)
+                quoted.append(String.format("\\u%04x", (int) c));
+            else
+                quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Write the report, replacing an older one
+     */
+    public void write(Path path, Configuration conf) throws IOException {
+        try (FSDataOutputStream out = path.getFileSystem(conf).create(path, true)) {
+            out.write(toJson().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Write the report of a job driver to "--report path" or to _report.json in the output directory
+     */
+    public void write(JobOptions options, Configuration conf) throws IOException {
+        String report = options.get("--report", null);
+        write(report != null ? new Path(report) : new Path(options.getOutput(), FILE_NAME), conf);
+    }
+}
@@ -0,0 +1,153 @@
+package org.example;
+
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A class represent a (year, season) key, 5 bytes serialized.
+ * The keys sort by the year as a number, then by the season in alphabetical order like the "year-season" text keys.
+ * The text keys sorted the years as text, so the orders are the same only while the years have the same number
+ * of digits, e.g. 999 sorts before 1000 here and after it as text
+ */
+public class SeasonKey implements WritableComparable<SeasonKey> {
+
+    public static final byte FALL = 0;
+    public static final byte SPRING = 1;
+    public static final byte SUMMER = 2;
+    public static final byte WINTER = 3;
+    private static final String[] NAMES = {"fall", "spring", "summer", "winter"};
+    //the range of the years a packed key holds
+    public static final int MIN_YEAR = Integer.MIN_VALUE >> 2;
+    public static final int MAX_YEAR = Integer.MAX_VALUE >> 2;
+
+    private int year;
+    private byte season;
+
+    public SeasonKey() {
+    }
+
+    public SeasonKey(int year, byte season) {
+        set(year, season);
+    }
+
+    public void set(int year, byte season) {
+        this.year = year;
+        this.season = season;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public byte getSeason() {
+        return season;
+    }
+
+    /**
+     * @param month - the month index, 0 for January
+     * @return the season of the month
+     */
+    public static byte seasonOf(int month) {
+        if (month == 0 || month == 1 || month == 11) {//winter
+            return WINTER;
+        } else if (month == 2 || month == 3 || month == 4) {//spring
+            return SPRING;
+        } else if (month == 5 || month == 6 || month == 7) {//summer
+            return SUMMER;
+        }
+        return FALL;
+    }
+
+    /**
+     * @return the season name, e.g. "winter"
+     */
+    public static String nameOf(byte season) {
+        return NAMES[season];
+    }
+
+    /**
+     * @return true if the year fits a packed key
+     */
+    public static boolean fits(int year) {
+        return year >= MIN_YEAR && year <= MAX_YEAR;
+    }
+
+    /**
+     * Pack a (year, season) pair into a single int, used as a primitive map key.
+     * The year must fit, a year out of the range wraps into another year
+     */
+    public static int pack(int year, byte season) {
+        return year << 2 | season;
+    }
+
+    public void unpack(int packed) {
+        set(packed >> 2, (byte) (packed & 3));
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(year);
+        out.writeByte(season);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        year = in.readInt();
+        season = in.readByte();
+    }
+
+    @Override
+    public int compareTo(SeasonKey other) {
+        if (year != other.year)
+            return year < other.year ? -1 : 1;
+        return season - other.season;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof SeasonKey))
+            return false;
+        SeasonKey other = (SeasonKey) o;
+        return year == other.year && season == other.season;
+    }
+
+    @Override
+    public int hashCode() {
+        return pack(year, season);
+    }
+
+    /**
+     * @return the key as "year-season" text, e.g. "1999-winter"
+     */
+    @Override
+    public String toString() {
+        return year + "-" + NAMES[season];
+    }
+
+    /**
+     * A comparator that compares the serialized keys without deserializing them
+     */
+    public static class Comparator extends WritableComparator {
+
+        public Comparator() {
+            super(SeasonKey.class);
+        }
+
+        @Override
+        public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+            int year1 = readInt(b1, s1);
+            int year2 = readInt(b2, s2);
+            if (year1 != year2)
+                return year1 < year2 ? -1 : 1;
+            return b1[s1 + 4] - b2[s2 + 4];
+        }
+    }
+
+    static {
+        WritableComparator.define(SeasonKey.class, new Comparator());
+    }
+}
@@ -0,0 +1,207 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A class represent the rolling sums and the standardized precipitation index (SPI) of a monthly series.
+ * The years are added in ascending order, the rolling sums come from ring buffers in one pass and only
+ * one sum per window and month is kept. The index of a window and calendar month fits a gamma distribution
+ * to the sums of that calendar month over all the years (Thom's estimate, the zero sums are counted apart)
+ * and maps the cumulative probability of every sum to a standard normal deviate
+ */
+public class StandardizedPrecipitationIndex {
+
+    //the marker of a month whose window reaches a missing year
+    private static final long MISSING = Long.MIN_VALUE;
+    //the least amount of positive sums a calendar month needs to fit a distribution
+    public static final int MIN_SAMPLES = 3;
+
+    private final MonthlyWindows windows;
+    private int[] years = new int[16];
+    private long[][] sums;
+    private int yearsAmount;
+
+    /**
+     * @param windows - the window sizes in months, e.g. 3, 6 and 12
+     */
+    public StandardizedPrecipitationIndex(int... windows) {
+        this.windows = new MonthlyWindows(windows);
+        sums = new long[windows.length][years.length * RainfallRecord.MONTHS];
+    }
+
+    public int windows() {
+        return windows.windows();
+    }
+
+    /**
+     * Add the months of the next year, a year that does not follow the previous one starts the windows over
+     */
+    public void add(int year, int[] months) {
+        if (yearsAmount > 0) {
+            int previous = years[yearsAmount - 1];
+            if (year <= previous)
+                throw new IllegalArgumentException("Year " + year + " is not after " + previous);
+            if (year != previous + 1)
+                windows.reset();
+        }
+        if (yearsAmount == years.length) {
+            years = Arrays.copyOf(years, years.length * 2);
+            for (int w = 0; w < sums.length; w++)
+                sums[w] = Arrays.copyOf(sums[w], years.length * RainfallRecord.MONTHS);
+        }
+        years[yearsAmount] = year;
+        for (int m = 0; m < RainfallRecord.MONTHS; m++) {
+            windows.add(months[m]);
+            int position = yearsAmount * RainfallRecord.MONTHS + m;
+            for (int w = 0; w < sums.length; w++)
+                sums[w][position] = windows.isFull(w) ? windows.sum(w) : MISSING;
+        }
+        yearsAmount++;
+    }
+
+    /**
+     * @return a line per month in time order, "month/year" then the sum of every window
+     * then the index of every window, "-" where the window is not full or the index is unknown.
+     * The indexes always use a decimal point, whatever the default locale
+     */
+    public List<String> lines() {
+        double[][] indexes = new double[sums.length][];
+        for (int w = 0; w < sums.length; w++)
+            indexes[w] = indexes(sums[w]);
+        List<String> lines = new ArrayList<>(yearsAmount * RainfallRecord.MONTHS);
+        StringBuilder line = new StringBuilder();
+        for (int position = 0; position < yearsAmount * RainfallRecord.MONTHS; position++) {
+            line.setLength(0);
+            line.append(position % RainfallRecord.MONTHS + 1).append('/').append(years[position / RainfallRecord.MONTHS]);
+            for (int w = 0; w < sums.length; w++) {
+                long sum = sums[w][position];
+                line.append(w == 0 ? '\t' : ' ').append(sum == MISSING ? "-" : Long.toString(sum));
+            }
+            for (int w = 0; w < sums.length; w++) {
+                double index = indexes[w][position];
+                line.append(w == 0 ? '\t' : ' ')
+                        .append(Double.isNaN(index) ? "-" : String.format(Locale.ROOT, "%.2f", index));
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * @return the index of every sum of a window, NaN where it is unknown
+     */
+    private double[] indexes(long[] windowSums) {
+        int length = yearsAmount * RainfallRecord.MONTHS;
+        double[] indexes = new double[length];
+        Arrays.fill(indexes, Double.NaN);
+        for (int month = 0; month < RainfallRecord.MONTHS; month++) {
+            int total = 0;
+            int zeros = 0;
+            double sum = 0;
+            double logSum = 0;
+            for (int position = month; position < length; position += RainfallRecord.MONTHS) {
+                long value = windowSums[position];
+                if (value == MISSING)
+                    continue;
+                total++;
+                if (value <= 0) {
+                    zeros++;
+                    continue;
+                }
+                sum += value;
+                logSum += Math.log(value);
+            }
+            int positive = total - zeros;
+            if (positive < MIN_SAMPLES)
+                continue;
+            double mean = sum / positive;
+            double a = Math.log(mean) - logSum / positive;
+            //every positive sum is the same, there is no spread to standardize
+            if (a <= 0)
+                continue;
+            double shape = (1 + Math.sqrt(1 + 4 * a / 3)) / (4 * a);
+            double scale = mean / shape;
+            double zeroProbability = (double) zeros / total;
+            for (int position = month; position < length; position += RainfallRecord.MONTHS) {
+                long value = windowSums[position];
+                if (value == MISSING)
+                    continue;
+                double probability = value <= 0 ? zeroProbability
+                        : zeroProbability + (1 - zeroProbability) * regularizedGamma(shape, value / scale);
+                indexes[position] = normalDeviate(probability);
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * @return the regularized lower incomplete gamma function P(a, x)
+     */
+    static double regularizedGamma(double a, double x) {
+        if (x <= 0)
+            return 0;
+        double logPrefix = a * Math.log(x) - x - logGamma(a);
+        if (x < a + 1) {
+            //the series converges fast below a + 1
+            double term = 1 / a;
+            double sum = term;
+            for (int n = 1; n < 500 && Math.abs(term) > Math.abs(sum) * 1e-15; n++) {
+                term *= x / (a + n);
+                sum += term;
+            }
+            return sum * Math.exp(logPrefix);
+        }
+        //the continued fraction of Q(a, x) converges fast above a + 1 (modified Lentz)
+        double tiny = 1e-300;
+        double b = x + 1 - a;
+        double c = 1 / tiny;
+        double d = 1 / b;
+        double fraction = d;
+        for (int n = 1; n < 500; n++) {
+            double an = -n * (n - a);
+            b += 2;
+            d = an * d + b;
+            if (Math.abs(d) < tiny)
+                d = tiny;
+            c = b + an / c;
+            if (Math.abs(c) < tiny)
+                c = tiny;
+            d = 1 / d;
+            double delta = d * c;
+            fraction *= delta;
+            if (Math.abs(delta - 1) < 1e-15)
+                break;
+        }
+        return 1 - Math.exp(logPrefix) * fraction;
+    }
+
+    /**
+     * @return the logarithm of the gamma function (Lanczos approximation)
+     */
+    static double logGamma(double x) {
+        double[] coefficients = {76.18009172947146, -86.50532032941677, 24.01409824083091,
+                -1.231739572450155, 0.1208650973866179e-2, -0.5395239384953e-5};
+        double y = x;
+        double tmp = x + 5.5;
+        tmp -= (x + 0.5) * Math.log(tmp);
+        double series = 1.000000000190015;
+        for (double coefficient : coefficients)
+            series += coefficient / ++y;
+        return -tmp + Math.log(2.5066282746310005 * series / x);
+    }
+
+    /**
+     * @return the standard normal deviate of a cumulative probability (Abramowitz and Stegun 26.2.23)
+     */
+    static double normalDeviate(double probability) {
+        double p = Math.min(Math.max(probability, 1e-10), 1 - 1e-10);
+        double tail = p < 0.5 ? p : 1 - p;
+        double t = Math.sqrt(-2 * Math.log(tail));
+        double deviate = t - (2.515517 + t * (0.802853 + t * 0.010328))
+                / (1 + t * (1.432788 + t * (0.189269 + t * 0.001308)));
+        return p < 0.5 ? -deviate : deviate;
+    }
+}
@@ -0,0 +1,185 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A class represent the min max, seasons and drought statistics of one station, computed in a single pass
+ * over its rows in ascending year order, like the secondary sort of the station statistics delivers them.
+ * The rows of a year are summed as they arrive, so the series keeps one entry per year and no hash maps.
+ * The result lines are the lines of RainfallAggregates over the same rows
+ */
+public class StationSeries {
+
+    private static final int SEASONS = 4;
+
+    private int[] years = new int[64];
+    private int[] totals = new int[64];
+    //the last average of each year
+    private int[] averages = new int[64];
+    private int[] seasons = new int[64 * SEASONS];
+    private int count;
+    private long averageSum;
+    private long rows;
+    private int maxMonthVal;
+    private int minMonthVal;
+    private String maxMonth;
+    private String minMonth;
+    //true while every year has the same number of digits, then the text order is the year order
+    private boolean textOrdered;
+
+    public StationSeries() {
+        reset();
+    }
+
+    /**
+     * Start the series of the next station
+     */
+    public void reset() {
+        count = 0;
+        averageSum = 0;
+        rows = 0;
+        maxMonthVal = Integer.MIN_VALUE;
+        minMonthVal = Integer.MAX_VALUE;
+        maxMonth = null;
+        minMonth = null;
+        textOrdered = true;
+    }
+
+    /**
+     * Add the next row, its year is not lower than the year of the previous row
+     */
+    public void add(RainfallRecord row) {
+        int year = row.getYear();
+        if (count == 0 || years[count - 1] != year) {
+            if (count > 0 && year < years[count - 1])
+                throw new IllegalArgumentException("The year " + year + " follows the year " + years[count - 1]);
+            if (count == years.length)
+                grow();
+            if (year < 0 || count > 0 && digits(year) != digits(years[0]))
+                textOrdered = false;
+            years[count] = year;
+            totals[count] = 0;
+            Arrays.fill(seasons, count * SEASONS, (count + 1) * SEASONS, 0);
+            count++;
+        }
+        int last = count - 1;
+        for (int i = 0; i < RainfallRecord.MONTHS; i++) {
+            int rainValue = row.getMonth(i);
+            totals[last] += rainValue;
+            seasons[last * SEASONS + SeasonKey.seasonOf(i)] += rainValue;
+
+            //find the month/year with the max rain fall value
+            if (rainValue > maxMonthVal) {
+                maxMonthVal = rainValue;
+                maxMonth = (i + 1) + "/" + year;
+            }
+
+            //find the month/year with the min rain fall value
+            if (rainValue < minMonthVal) {
+                minMonthVal = rainValue;
+                minMonth = (i + 1) + "/" + year;
+            }
+        }
+        averages[last] = row.getAverage();
+        averageSum += row.getAverage();
+        rows++;
+    }
+
+    private static int digits(int year) {
+        int digits = 1;
+        for (int value = year; value >= 10; value /= 10)
+            digits++;
+        return digits;
+    }
+
+    private void grow() {
+        years = Arrays.copyOf(years, count * 2);
+        totals = Arrays.copyOf(totals, count * 2);
+        averages = Arrays.copyOf(averages, count * 2);
+        seasons = Arrays.copyOf(seasons, count * 2 * SEASONS);
+    }
+
+    /**
+     * @return the lines of the min max statistics, the years in text order like the min max job
+     */
+    public List<String> minMaxLines() {
+        List<String> lines = new ArrayList<>();
+        int max = Integer.MIN_VALUE;
+        int min = Integer.MAX_VALUE;
+        String maxYear = null;
+        String minYear = null;
+        for (int i : textOrder()) {
+            String year = Integer.toString(years[i]);
+            lines.add(year + "\t" + totals[i]);
+            if (totals[i] > max) {
+                max = totals[i];
+                maxYear = year;
+            }
+            if (totals[i] < min) {
+                min = totals[i];
+                minYear = year;
+            }
+        }
+        RainfallAggregates.addMinMaxSummary(lines, maxMonth, rows == 0 ? 0 : maxMonthVal, minMonth,
+                rows == 0 ? 0 : minMonthVal, maxYear, max, minYear, min);
+        return lines;
+    }
+
+    /**
+     * @return the year indexes in the order of the year texts, the year order unless the digit counts differ
+     */
+    private Integer[] textOrder() {
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++)
+            order[i] = i;
+        if (!textOrdered)
+            Arrays.sort(order, Comparator.comparing(i -> Integer.toString(years[i])));
+        return order;
+    }
+
+    /**
+     * @return the lines of the seasons statistics, the seasons of a year follow the SeasonKey order
+     */
+    public List<String> seasonsLines() {
+        List<String> lines = new ArrayList<>();
+        int max = Integer.MIN_VALUE;
+        int min = Integer.MAX_VALUE;
+        String maxSeasonYear = null;
+        String minSeasonYear = null;
+        SeasonKey seasonKey = new SeasonKey();
+        for (int i = 0; i < count; i++) {
+            for (byte season = 0; season < SEASONS; season++) {
+                int sum = seasons[i * SEASONS + season];
+                seasonKey.set(years[i], season);
+                String seasonYear = seasonKey.toString();
+                lines.add(seasonYear + "\t" + sum);
+                if (sum > max) {
+                    max = sum;
+                    maxSeasonYear = seasonYear;
+                }
+                if (sum < min) {
+                    min = sum;
+                    minSeasonYear = seasonYear;
+                }
+            }
+        }
+        RainfallAggregates.addSeasonsSummary(lines, maxSeasonYear, max, minSeasonYear, min);
+        return lines;
+    }
+
+    /**
+     * @return the lines of the drought statistics, the years are already in ascending order
+     */
+    public List<String> droughtLines() {
+        List<String> lines = new ArrayList<>();
+        if (rows == 0)
+            return lines;
+        int multiAnnualAvg = (int) (averageSum / rows);
+        lines.add(DroughtDetector.averageLine(multiAnnualAvg));
+        lines.addAll(DroughtDetector.detect(years, averages, count, multiAnnualAvg));
+        return lines;
+    }
+}
@@ -0,0 +1,141 @@
+package org.example;
+
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.mapreduce.Partitioner;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A class represent a composite (station, year) key, 8 bytes serialized.
+ * The keys sort by station then year, the keys are partitioned and grouped by station only,
+ * so a reducer gets the rows of whole stations with the years in ascending order
+ */
+public class StationYearKey implements WritableComparable<StationYearKey> {
+
+    private int station;
+    private int year;
+
+    public void set(int station, int year) {
+        this.station = station;
+        this.year = year;
+    }
+
+    public int getStation() {
+        return station;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(station);
+        out.writeInt(year);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        station = in.readInt();
+        year = in.readInt();
+    }
+
+    @Override
+    public int compareTo(StationYearKey other) {
+        if (station != other.station)
+            return station < other.station ? -1 : 1;
+        if (year != other.year)
+            return year < other.year ? -1 : 1;
+        return 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof StationYearKey))
+            return false;
+        StationYearKey other = (StationYearKey) o;
+        return station == other.station && year == other.year;
+    }
+
+    @Override
+    public int hashCode() {
+        return station * 31 + year;
+    }
+
+    @Override
+    public String toString() {
+        return station + "-" + year;
+    }
+
+    /**
+     * A comparator that compares the serialized keys without deserializing them
+     */
+    public static class Comparator extends WritableComparator {
+
+        public Comparator() {
+            super(StationYearKey.class);
+        }
+
+        @Override
+        public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+            int station1 = readInt(b1, s1);
+            int station2 = readInt(b2, s2);
+            if (station1 != station2)
+                return station1 < station2 ? -1 : 1;
+            int year1 = readInt(b1, s1 + 4);
+            int year2 = readInt(b2, s2 + 4);
+            if (year1 != year2)
+                return year1 < year2 ? -1 : 1;
+            return 0;
+        }
+    }
+
+    /**
+     * A grouping comparator, all the years of a station are one reduce call
+     */
+    public static class StationComparator extends WritableComparator {
+
+        public StationComparator() {
+            super(StationYearKey.class);
+        }
+
+        @Override
+        public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+            int station1 = readInt(b1, s1);
+            int station2 = readInt(b2, s2);
+            if (station1 != station2)
+                return station1 < station2 ? -1 : 1;
+            return 0;
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public int compare(WritableComparable a, WritableComparable b) {
+            int station1 = ((StationYearKey) a).station;
+            int station2 = ((StationYearKey) b).station;
+            if (station1 != station2)
+                return station1 < station2 ? -1 : 1;
+            return 0;
+        }
+    }
+
+    /**
+     * A partitioner class, sends every year of a station to the same reducer
+     */
+    public static class StationPartitioner<V> extends Partitioner<StationYearKey, V> {
+
+        @Override
+        public int getPartition(StationYearKey key, V value, int numPartitions) {
+            //spread the station ids, consecutive ids are common
+            int h = key.station * 0x9E3779B9;
+            return ((h ^ h >>> 16) & Integer.MAX_VALUE) % numPartitions;
+        }
+    }
+
+    static {
+        WritableComparator.define(StationYearKey.class, new Comparator());
+    }
+}
@@ -0,0 +1,115 @@
+package org.example;
+
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A class represent a tagged key of the combined statistics, 6 bytes serialized:
+ * the statistic type, the year and a detail (the season or the month) of the statistic.
+ * The keys sort by type first so every statistic family reaches the reducer as one sorted block
+ */
+public class StatisticKey implements WritableComparable<StatisticKey> {
+
+    //the total of a year, detail unused
+    public static final byte YEAR_TOTAL = 0;
+    //the total of a season of a year, detail is the season
+    public static final byte SEASON_TOTAL = 1;
+    //the average of a year, detail unused
+    public static final byte YEAR_AVERAGE = 2;
+    //the wettest month of a split, detail is the month
+    public static final byte MAX_MONTH = 3;
+    //the driest month of a split, detail is the month
+    public static final byte MIN_MONTH = 4;
+
+    private byte type;
+    private int year;
+    private byte detail;
+
+    public void set(byte type, int year, byte detail) {
+        this.type = type;
+        this.year = year;
+        this.detail = detail;
+    }
+
+    public byte getType() {
+        return type;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public byte getDetail() {
+        return detail;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(type);
+        out.writeInt(year);
+        out.writeByte(detail);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        type = in.readByte();
+        year = in.readInt();
+        detail = in.readByte();
+    }
+
+    @Override
+    public int compareTo(StatisticKey other) {
+        if (type != other.type)
+            return type - other.type;
+        if (year != other.year)
+            return year < other.year ? -1 : 1;
+        return detail - other.detail;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof StatisticKey))
+            return false;
+        StatisticKey other = (StatisticKey) o;
+        return type == other.type && year == other.year && detail == other.detail;
+    }
+
+    @Override
+    public int hashCode() {
+        return (type * 31 + year) * 31 + detail;
+    }
+
+    @Override
+    public String toString() {
+        return type + "-" + year + "-" + detail;
+    }
+
+    /**
+     * A comparator that compares the serialized keys without deserializing them
+     */
+    public static class Comparator extends WritableComparator {
+
+        public Comparator() {
+            super(StatisticKey.class);
+        }
+
+        @Override
+        public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+            if (b1[s1] != b2[s2])
+                return b1[s1] - b2[s2];
+            int year1 = readInt(b1, s1 + 1);
+            int year2 = readInt(b2, s2 + 1);
+            if (year1 != year2)
+                return year1 < year2 ? -1 : 1;
+            return b1[s1 + 5] - b2[s2 + 5];
+        }
+    }
+
+    static {
+        WritableComparator.define(StatisticKey.class, new Comparator());
+    }
+}
@@ -0,0 +1,320 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * A class represent a streaming data file parser.
+ * The input file is memory mapped and split into newline aligned chunks, the chunks are parsed
+ * in parallel on a fork join pool and written in their original order through a single channel.
+ * The rows are written either as space separated text or in the binary format of {@link RainfallBinaryFormat}
+ */
+public class StreamingDataFileParser {
+
+    static final int DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+    //records per binary block, keeps the distance between sync markers small
+    static final int BLOCK_RECORDS = 1024;
+
+    private final int chunkSize;
+    private final int parallelism;
+
+    public StreamingDataFileParser() {
+        this(DEFAULT_CHUNK_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param chunkSize - the approximate size in bytes of each parsed chunk
+     * @param parallelism - the number of worker threads
+     */
+    public StreamingDataFileParser(int chunkSize, int parallelism) {
+        if (chunkSize <= 0 || parallelism <= 0)
+            throw new IllegalArgumentException("Chunk size and parallelism must be positive");
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Parse the csv input file and append the parsed rows to the output file
+     * @param input - the csv file
+     * @param output - the parsed data file
+     * @return the number of parsed rows
+     * @throws IOException
+     */
+    public long parse(Path input, Path output) throws IOException {
+        return parse(input, output, null, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Parse the csv input file into a new binary parsed data file
+     * @param input - the csv file
+     * @param output - the binary parsed data file, replaced if it exists
+     * @return the number of parsed rows
+     * @throws IOException
+     */
+    public long parseBinary(Path input, Path output) throws IOException {
+        return parse(input, output, RainfallBinaryFormat.newSync(), StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private long parse(Path input, Path output, byte[] sync, OpenOption mode) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+            if (sync != null)
+                writeFully(ByteBuffer.wrap(RainfallBinaryFormat.header(sync)), out);
+            long size = in.size();
+            long rows = 0;
+            //bound the number of chunks held in memory, the head of the queue is always written first
+            Deque<ForkJoinTask<Chunk>> inFlight = new ArrayDeque<>();
+            long start = 0;
+            while (start < size) {
+                long end = alignToNewline(in, Math.min(start + chunkSize, size), size);
+                MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                inFlight.add(pool.submit(new ChunkTask(buffer, sync)));
+                if (inFlight.size() >= 2 * parallelism)
+                    rows += write(inFlight.poll(), out);
+                start = end;
+            }
+            while (!inFlight.isEmpty())
+                rows += write(inFlight.poll(), out);
+            return rows;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Find the position right after the first newline at or after the given position
+     */
+    private static long alignToNewline(FileChannel in, long position, long size) throws IOException {
+        if (position >= size)
+            return size;
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long offset = position - 1;
+        while (offset < size) {
+            probe.clear();
+            int read = in.read(probe, offset);
+            if (read <= 0)
+                break;
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n')
+                    return offset + i + 1;
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    private static long write(ForkJoinTask<Chunk> task, FileChannel out) throws IOException {
+        Chunk chunk;
+        try {
+            chunk = task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to parse chunk", e.getCause());
+        }
+        writeFully(ByteBuffer.wrap(chunk.bytes, 0, chunk.length), out);
+        return chunk.rows;
+    }
+
+    private static void writeFully(ByteBuffer bytes, FileChannel out) throws IOException {
+        while (bytes.hasRemaining())
+            out.write(bytes);
+    }
+
+    /**
+     * The parsed rows of a single chunk
+     */
+    static class Chunk {
+        byte[] bytes = new byte[1024];
+        int length;
+        long rows;
+        //position of the record count of the open binary block
+        int blockCount = -1;
+        int blockRecords;
+
+        void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                byte[] grown = new byte[Math.max(bytes.length * 2, length + extra)];
+                System.arraycopy(bytes, 0, grown, 0, length);
+                bytes = grown;
+            }
+        }
+
+        void appendByte(int b) {
+            ensure(1);
+            bytes[length++] = (byte) b;
+        }
+
+        void appendInt(int value) {
+            //11 bytes is enough for any int including the sign
+            ensure(11);
+            if (value == Integer.MIN_VALUE) {
+                byte[] min = Integer.toString(value).getBytes();
+                System.arraycopy(min, 0, bytes, length, min.length);
+                length += min.length;
+                return;
+            }
+            if (value < 0) {
+                bytes[length++] = '-';
+                value = -value;
+            }
+            int digits = 1;
+            for (int v = value; v >= 10; v /= 10)
+                digits++;
+            for (int i = length + digits - 1; i >= length; i--) {
+                bytes[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            length += digits;
+        }
+
+        void appendBytes(byte[] value) {
+            ensure(value.length);
+            System.arraycopy(value, 0, bytes, length, value.length);
+            length += value.length;
+        }
+
+        void appendBinaryInt(int value) {
+            ensure(4);
+            putBinaryInt(length, value);
+            length += 4;
+        }
+
+        void putBinaryInt(int position, int value) {
+            bytes[position] = (byte) (value >>> 24);
+            bytes[position + 1] = (byte) (value >>> 16);
+            bytes[position + 2] = (byte) (value >>> 8);
+            bytes[position + 3] = (byte) value;
+        }
+    }
+
+    /**
+     * A task that parses one chunk of csv lines into the parsed data file format
+     */
+    static class ChunkTask implements Callable<Chunk> {
+        private final ByteBuffer buffer;
+        private final byte[] sync;
+
+        /**
+         * @param buffer - the csv lines
+         * @param sync - the sync marker of the binary file, null to write text
+         */
+        ChunkTask(ByteBuffer buffer, byte[] sync) {
+            this.buffer = buffer;
+            this.sync = sync;
+        }
+
+        @Override
+        public Chunk call() {
+            Chunk chunk = new Chunk();
+            chunk.ensure(buffer.limit() + buffer.limit() / 4);
+            int[] fields = new int[16];
+            int count = 0;
+            int value = 0;
+            boolean negative = false;
+            boolean digits = false;
+            int limit = buffer.limit();
+            for (int i = 0; i <= limit; i++) {
+                //a missing newline at the end of the chunk still terminates the last row
+                byte b = i < limit ? buffer.get(i) : (byte) '\n';
+                if (b >= '0' && b <= '9') {
+                    value = value * 10 + (b - '0');
+                    digits = true;
+                } else if (b == '-' && !digits && !negative) {
+                    negative = true;
+                } else if (b == ',' || b == '\n') {
+                    if (digits) {
+                        if (count == fields.length) {
+                            int[] grown = new int[fields.length * 2];
+                            System.arraycopy(fields, 0, grown, 0, count);
+                            fields = grown;
+                        }
+                        fields[count++] = negative ? -value : value;
+                    } else if (b == ',' || count > 0) {
+                        throw new NumberFormatException("Empty or invalid field in row " + (chunk.rows + 1));
+                    }
+                    value = 0;
+                    negative = false;
+                    digits = false;
+                    if (b == '\n') {
+                        //blank lines are skipped
+                        if (count > 1) {
+                            if (sync != null)
+                                appendBinaryRow(chunk, fields, count);
+                            else
+                                appendRow(chunk, fields, count);
+                        }
+                        count = 0;
+                    }
+                } else if (b != '\r' && b != ' ' && b != '\t') {
+                    throw new NumberFormatException("Unexpected character '" + (char) b + "' in row " + (chunk.rows + 1));
+                }
+            }
+            if (chunk.blockCount >= 0)
+                chunk.putBinaryInt(chunk.blockCount, chunk.blockRecords);
+            return chunk;
+        }
+
+        private void appendBinaryRow(Chunk chunk, int[] fields, int count) {
+            if (count != RainfallRecord.MONTHS + 1 && count != RainfallRecord.MONTHS + 2)
+                throw new NumberFormatException("Expected an optional station, a year and " + RainfallRecord.MONTHS
+                        + " months in row " + (chunk.rows + 1) + " but found " + count + " fields");
+            //close the open block and start a new one after every BLOCK_RECORDS records
+            if (chunk.blockCount < 0 || chunk.blockRecords == BLOCK_RECORDS) {
+                if (chunk.blockCount >= 0)
+                    chunk.putBinaryInt(chunk.blockCount, chunk.blockRecords);
+                chunk.appendBytes(sync);
+                chunk.blockCount = chunk.length;
+                chunk.appendBinaryInt(0);
+                chunk.blockRecords = 0;
+            }
+            //the rows of a single series have no station column
+            int first = count - RainfallRecord.MONTHS - 1;
+            chunk.appendBinaryInt(first == 0 ? RainfallRecord.NO_STATION : fields[0]);
+            int sum = 0;
+            for (int i = first; i < count; i++) {
+                chunk.appendBinaryInt(fields[i]);
+                if (i > first)
+                    sum += fields[i];
+            }
+            chunk.appendBinaryInt(sum / RainfallRecord.MONTHS);
+            chunk.blockRecords++;
+            chunk.rows++;
+        }
+
+        private static void appendRow(Chunk chunk, int[] fields, int count) {
+            //a row of a year and 12 months after a station keeps the station column in front
+            int first = count == RainfallRecord.MONTHS + 2 ? 1 : 0;
+            if (first == 1) {
+                chunk.appendInt(fields[0]);
+                chunk.appendByte(' ');
+            }
+            int sum = 0;
+            chunk.appendInt(fields[first]);
+            //aggregate year values
+            for (int i = first + 1; i < count; i++) {
+                chunk.appendByte(' ');
+                chunk.appendInt(fields[i]);
+                sum += fields[i];
+            }
+            //calc the year average
+            chunk.appendByte(' ');
+            chunk.appendInt(sum / (count - first - 1));
+            chunk.appendByte('\n');
+            chunk.rows++;
+        }
+    }
+}
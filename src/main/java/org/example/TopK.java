@@ -0,0 +1,206 @@
+package org.example;
+
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A class represent the K largest (or smallest) values seen, each with its station, year and period.
+ * The values are kept in a bounded heap whose root is the weakest kept value, so adding a value
+ * costs O(log K) and the heaps of several mappers merge into the heap of the whole input.
+ * Equal values keep the earlier station, year and period, so the result does not depend on the input order
+ */
+public class TopK implements Writable {
+
+    private int k;
+    private boolean largest;
+    private int size;
+    private int[] values;
+    private int[] stations;
+    private int[] years;
+    private int[] periods;
+
+    /**
+     * For the Writable deserialization only
+     */
+    public TopK() {
+        this(1, true);
+    }
+
+    /**
+     * @param k - the amount of values to keep
+     * @param largest - true to keep the largest values, false to keep the smallest ones
+     */
+    public TopK(int k, boolean largest) {
+        if (k < 1)
+            throw new IllegalArgumentException("Invalid top size " + k);
+        this.k = k;
+        this.largest = largest;
+        values = new int[k];
+        stations = new int[k];
+        years = new int[k];
+        periods = new int[k];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Offer a value
+     * @param station - the station of the value, RainfallRecord.NO_STATION for a single series
+     * @param period - the month, the season or any other part of the year, the same for every year value
+     */
+    public void add(int value, int station, int year, int period) {
+        if (size < k) {
+            set(size, value, station, year, period);
+            siftUp(size++);
+        } else if (better(value, station, year, period, 0)) {
+            set(0, value, station, year, period);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Add the values of another top of the same size and direction
+     */
+    public void merge(TopK other) {
+        for (int i = 0; i < other.size; i++)
+            add(other.values[i], other.stations[i], other.years[i], other.periods[i]);
+    }
+
+    /**
+     * @return the kept values, the best first
+     */
+    public List<Entry> entries() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> better(values[a], stations[a], years[a], periods[a], b) ? -1
+                : better(values[b], stations[b], years[b], periods[b], a) ? 1 : 0);
+        List<Entry> entries = new ArrayList<>(size);
+        for (int i : order)
+            entries.add(new Entry(values[i], stations[i], years[i], periods[i]));
+        return entries;
+    }
+
+    private void set(int slot, int value, int station, int year, int period) {
+        values[slot] = value;
+        stations[slot] = station;
+        years[slot] = year;
+        periods[slot] = period;
+    }
+
+    /**
+     * @return true if the value ranks before the value of the slot
+     */
+    private boolean better(int value, int station, int year, int period, int slot) {
+        if (value != values[slot])
+            return largest ? value > values[slot] : value < values[slot];
+        if (station != stations[slot])
+            return station < stations[slot];
+        if (year != years[slot])
+            return year < years[slot];
+        return period < periods[slot];
+    }
+
+    //the root is the weakest value, a parent is never better than its children
+    private void siftUp(int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) / 2;
+            if (!better(values[parent], stations[parent], years[parent], periods[parent], slot))
+                return;
+            swap(slot, parent);
+            slot = parent;
+        }
+    }
+
+    private void siftDown(int slot) {
+        while (true) {
+            int weakest = slot;
+            for (int child = 2 * slot + 1; child <= 2 * slot + 2 && child < size; child++) {
+                if (better(values[weakest], stations[weakest], years[weakest], periods[weakest], child))
+                    weakest = child;
+            }
+            if (weakest == slot)
+                return;
+            swap(slot, weakest);
+            slot = weakest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int value = values[a];
+        int station = stations[a];
+        int year = years[a];
+        int period = periods[a];
+        set(a, values[b], stations[b], years[b], periods[b]);
+        set(b, value, station, year, period);
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(k);
+        out.writeBoolean(largest);
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeInt(values[i]);
+            out.writeInt(stations[i]);
+            out.writeInt(years[i]);
+            out.writeInt(periods[i]);
+        }
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        k = in.readInt();
+        largest = in.readBoolean();
+        size = in.readInt();
+        if (values.length != k) {
+            values = new int[k];
+            stations = new int[k];
+            years = new int[k];
+            periods = new int[k];
+        }
+        for (int i = 0; i < size; i++)
+            set(i, in.readInt(), in.readInt(), in.readInt(), in.readInt());
+    }
+
+    /**
+     * A class represent a kept value
+     */
+    public static class Entry {
+        private final int value;
+        private final int station;
+        private final int year;
+        private final int period;
+
+        public Entry(int value, int station, int year, int period) {
+            this.value = value;
+            this.station = station;
+            this.year = year;
+            this.period = period;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        public int getStation() {
+            return station;
+        }
+
+        public int getYear() {
+            return year;
+        }
+
+        public int getPeriod() {
+            return period;
+        }
+    }
+}
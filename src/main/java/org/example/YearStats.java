@@ -0,0 +1,164 @@
+package org.example;
+
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A class represent the statistics of a year: the year, the year average, the rainfall sum
+ * and optionally the 12 monthly values. Serialized as year (4), average (4), sum (8),
+ * a month count byte (0 or 12) and the months, 17 bytes without the months
+ */
+public class YearStats implements WritableComparable<YearStats> {
+
+    private int year;
+    private int average;
+    private long sum;
+    private int[] months;
+    private boolean hasMonths;
+
+    public YearStats() {
+    }
+
+    public YearStats(int year, int average, long sum) {
+        set(year, average, sum);
+    }
+
+    /**
+     * Set the statistics without the monthly values
+     */
+    public void set(int year, int average, long sum) {
+        this.year = year;
+        this.average = average;
+        this.sum = sum;
+        this.hasMonths = false;
+    }
+
+    /**
+     * Set the statistics of a row, with the monthly values
+     */
+    public void set(RainfallRecord row) {
+        set(row.getYear(), row.getAverage(), row.getSum());
+        if (months == null)
+            months = new int[RainfallRecord.MONTHS];
+        for (int i = 0; i < RainfallRecord.MONTHS; i++)
+            months[i] = row.getMonth(i);
+        hasMonths = true;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getAverage() {
+        return average;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public boolean hasMonths() {
+        return hasMonths;
+    }
+
+    /**
+     * @param month - the month index, 0 for January
+     * @return the rainfall value of the month
+     * @throws IllegalStateException if the statistics have no monthly values
+     */
+    public int getMonth(int month) {
+        if (!hasMonths)
+            throw new IllegalStateException("The statistics of " + year + " have no monthly values");
+        return months[month];
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(year);
+        out.writeInt(average);
+        out.writeLong(sum);
+        out.writeByte(hasMonths ? RainfallRecord.MONTHS : 0);
+        if (hasMonths) {
+            for (int value : months)
+                out.writeInt(value);
+        }
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        year = in.readInt();
+        average = in.readInt();
+        sum = in.readLong();
+        int count = in.readByte();
+        hasMonths = count > 0;
+        if (hasMonths) {
+            if (months == null)
+                months = new int[RainfallRecord.MONTHS];
+            for (int i = 0; i < count; i++)
+                months[i] = in.readInt();
+        }
+    }
+
+    /**
+     * The statistics sort by year, then by average and by sum
+     */
+    @Override
+    public int compareTo(YearStats other) {
+        if (year != other.year)
+            return year < other.year ? -1 : 1;
+        if (average != other.average)
+            return average < other.average ? -1 : 1;
+        return Long.compare(sum, other.sum);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof YearStats))
+            return false;
+        YearStats other = (YearStats) o;
+        return year == other.year && average == other.average && sum == other.sum
+                && hasMonths == other.hasMonths && (!hasMonths || Arrays.equals(months, other.months));
+    }
+
+    @Override
+    public int hashCode() {
+        return (year * 31 + average) * 31 + Long.hashCode(sum);
+    }
+
+    @Override
+    public String toString() {
+        return year + " " + average + " " + sum;
+    }
+
+    /**
+     * A comparator that compares the serialized statistics without deserializing them
+     */
+    public static class Comparator extends WritableComparator {
+
+        public Comparator() {
+            super(YearStats.class);
+        }
+
+        @Override
+        public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+            int year1 = readInt(b1, s1);
+            int year2 = readInt(b2, s2);
+            if (year1 != year2)
+                return year1 < year2 ? -1 : 1;
+            int average1 = readInt(b1, s1 + 4);
+            int average2 = readInt(b2, s2 + 4);
+            if (average1 != average2)
+                return average1 < average2 ? -1 : 1;
+            return Long.compare(readLong(b1, s1 + 8), readLong(b2, s2 + 8));
+        }
+    }
+
+    static {
+        WritableComparator.define(YearStats.class, new Comparator());
+    }
+}
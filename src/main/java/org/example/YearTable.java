@@ -0,0 +1,125 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * A class represent the year averages of the drought statistics in primitive arrays. The years are added in any
+ * order and a repeated year keeps its last average. The table is sorted through an int[] indexed by the offset
+ * of the year from the first year, so the years come out in ascending order in a single pass over the span.
+ * Years far apart (a span much larger than the years) are sorted instead
+ */
+public class YearTable {
+
+    //the span of a dense table may be this many times the amount of years, plus a constant
+    private static final int MAX_SPARSENESS = 8;
+    private static final int MIN_DENSE_SPAN = 1 << 16;
+
+    private int[] years = new int[256];
+    private int[] averages = new int[256];
+    private int added;
+    private int size;
+    private boolean sorted = true;
+
+    public void add(int year, int average) {
+        if (added == years.length) {
+            years = Arrays.copyOf(years, added * 2);
+            averages = Arrays.copyOf(averages, added * 2);
+        }
+        years[added] = year;
+        averages[added] = average;
+        added++;
+        sorted = false;
+    }
+
+    /**
+     * @return the amount of distinct years
+     */
+    public int size() {
+        sort();
+        return size;
+    }
+
+    /**
+     * @return the distinct years in ascending order, the first size() entries
+     */
+    public int[] getYears() {
+        sort();
+        return years;
+    }
+
+    /**
+     * @return the average of each year of getYears()
+     */
+    public int[] getAverages() {
+        sort();
+        return averages;
+    }
+
+    /**
+     * @return the lower median of the year averages, 0 without years
+     */
+    public int median() {
+        sort();
+        if (size == 0)
+            return 0;
+        int[] copy = Arrays.copyOf(averages, size);
+        Arrays.sort(copy);
+        return copy[(size - 1) / 2];
+    }
+
+    private void sort() {
+        if (sorted)
+            return;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < added; i++) {
+            min = Math.min(min, years[i]);
+            max = Math.max(max, years[i]);
+        }
+        long span = added == 0 ? 0 : (long) max - min + 1;
+        if (span <= Math.max((long) added * MAX_SPARSENESS, MIN_DENSE_SPAN))
+            sortDense(min, (int) span);
+        else
+            sortSparse();
+        added = size;
+        sorted = true;
+    }
+
+    private void sortDense(int min, int span) {
+        int[] table = new int[span];
+        boolean[] present = new boolean[span];
+        for (int i = 0; i < added; i++) {
+            table[years[i] - min] = averages[i];
+            present[years[i] - min] = true;
+        }
+        size = 0;
+        for (int offset = 0; offset < span; offset++) {
+            if (present[offset]) {
+                years[size] = min + offset;
+                averages[size] = table[offset];
+                size++;
+            }
+        }
+    }
+
+    private void sortSparse() {
+        //the year in the high bits and the insertion order in the low bits, the last average of a year sorts last
+        long[] keys = new long[added];
+        for (int i = 0; i < added; i++)
+            keys[i] = (long) years[i] << 32 | i;
+        Arrays.sort(keys);
+        int[] sortedAverages = new int[added];
+        size = 0;
+        for (int i = 0; i < added; i++) {
+            int year = (int) (keys[i] >> 32);
+            int average = averages[(int) keys[i]];
+            if (size > 0 && years[size - 1] == year) {
+                sortedAverages[size - 1] = average;
+            } else {
+                years[size] = year;
+                sortedAverages[size++] = average;
+            }
+        }
+        System.arraycopy(sortedAverages, 0, averages, 0, size);
+    }
+}
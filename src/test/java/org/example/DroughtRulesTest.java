@@ -0,0 +1,94 @@
+package org.example;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit test for the drought rules and the year table
+ */
+public class DroughtRulesTest
+{
+    @Test
+    public void shouldSortTheYearsWithTheLastAverage()
+    {
+        YearTable dense = new YearTable();
+        YearTable sparse = new YearTable();
+        int[] years = {1953, 1950, 1952, 1950, 1951};
+        int[] averages = {40, 10, 30, 11, 20};
+        for (int i = 0; i < years.length; i++) {
+            dense.add(years[i], averages[i]);
+            //years a million apart are sorted, not indexed
+            sparse.add(years[i] * 1000000, averages[i]);
+        }
+        assertEquals(4, dense.size());
+        assertArrayEquals(new int[]{1950, 1951, 1952, 1953}, Arrays.copyOf(dense.getYears(), 4));
+        assertArrayEquals(new int[]{11, 20, 30, 40}, Arrays.copyOf(dense.getAverages(), 4));
+        assertEquals(4, sparse.size());
+        assertArrayEquals(Arrays.copyOf(dense.getAverages(), 4), Arrays.copyOf(sparse.getAverages(), 4));
+        assertEquals(20, dense.median());
+    }
+
+    @Test
+    public void shouldDetectEveryRuleLikeASinglePass()
+    {
+        Random random = new Random(17);
+        YearTable table = new YearTable();
+        int[] years = new int[300];
+        int[] averages = new int[300];
+        long sum = 0;
+        for (int i = 0; i < years.length; i++) {
+            years[i] = 1700 + i;
+            averages[i] = 60 + random.nextInt(100);
+            sum += averages[i];
+        }
+        //added in reverse, the table sorts them
+        for (int i = years.length - 1; i >= 0; i--)
+            table.add(years[i], averages[i]);
+        int mean = (int) (sum / years.length);
+        int[] sorted = averages.clone();
+        Arrays.sort(sorted);
+        int median = sorted[(sorted.length - 1) / 2];
+
+        DroughtRule[] rules = DroughtRule.parseAll("mean:100:3, mean:80:2,mean:90:5,median:90:2,median:100:3");
+        List<List<String>> lines = DroughtDetector.detect(table, rules, mean);
+        //the default rule gives the lines of the drought statistics
+        List<String> expected = new ArrayList<>();
+        expected.add(DroughtDetector.averageLine(mean));
+        expected.addAll(DroughtDetector.detect(years, averages, years.length, mean));
+        assertEquals(expected, lines.get(0));
+        for (int r = 0; r < rules.length; r++) {
+            int baseline = rules[r].isMedian() ? median : mean;
+            assertEquals(rules[r].baselineLine(baseline), lines.get(r).get(0));
+            assertEquals(naive(years, averages, baseline * rules[r].getPercent() / 100.0, rules[r].getMinYears()),
+                    lines.get(r).subList(1, lines.get(r).size()));
+        }
+        assertEquals("median:90:2\t" + lines.get(3).get(0),
+                DroughtDetector.label(rules, lines).get(lines.get(0).size() + lines.get(1).size() + lines.get(2).size()));
+    }
+
+    /**
+     * The runs of years below the threshold, of at least minYears years and closed by a later year
+     */
+    private static List<String> naive(int[] years, int[] averages, double threshold, int minYears)
+    {
+        List<String> droughts = new ArrayList<>();
+        int run = 0;
+        for (int i = 0; i < years.length; i++) {
+            if (averages[i] < threshold) {
+                run++;
+                continue;
+            }
+            if (run >= minYears)
+                droughts.add(DroughtDetector.droughtLine(years, averages, i - run, i));
+            run = 0;
+        }
+        return droughts;
+    }
+}
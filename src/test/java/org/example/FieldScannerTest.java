@@ -0,0 +1,60 @@
+package org.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+/**
+ * Unit test for the field scanner
+ */
+public class FieldScannerTest
+{
+    @Test
+    public void shouldScanSpaceAndCommaSeparatedInts()
+    {
+        FieldScanner scanner = new FieldScanner();
+        scanner.reset(new Text("1950,68, -291\t+32  2147483647 -2147483648\r\n"));
+        assertEquals(1950, scanner.nextInt());
+        assertEquals(68, scanner.nextInt());
+        assertEquals(-291, scanner.nextInt());
+        assertEquals(32, scanner.nextInt());
+        assertEquals(Integer.MAX_VALUE, scanner.nextInt());
+        assertEquals(Integer.MIN_VALUE, scanner.nextInt());
+        assertFalse(scanner.hasNext());
+    }
+
+    @Test
+    public void shouldOnlyScanTheTextLength()
+    {
+        Text text = new Text("1 2 3 4 5");
+        text.set("7 8");
+        FieldScanner scanner = new FieldScanner().reset(text);
+        assertEquals(7, scanner.nextInt());
+        assertEquals(8, scanner.nextInt());
+        assertFalse(scanner.hasNext());
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void shouldRejectNonDigits()
+    {
+        new FieldScanner().reset(new Text("12a")).nextInt();
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void shouldRejectOverflow()
+    {
+        new FieldScanner().reset(new Text("2147483648")).nextInt();
+    }
+
+    @Test
+    public void shouldRejectShortRecords()
+    {
+        RainfallRecord record = new RainfallRecord();
+        assertFalse(record.parse(new Text("1950 1 2 3")));
+        assertTrue(record.parse(new Text("1950 1 2 3 4 5 6 7 8 9 10 11 12 6")));
+        assertEquals(78, record.getSum());
+    }
+}
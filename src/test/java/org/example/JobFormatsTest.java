@@ -0,0 +1,31 @@
+package org.example;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.hadoop.io.compress.BZip2Codec;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.mapreduce.Job;
+import org.junit.Test;
+
+/**
+ * Unit test for the job input, output and compression setup
+ */
+public class JobFormatsTest
+{
+    @Test
+    public void shouldSetTheMapOutputCodec() throws Exception
+    {
+        Job job = new Job();
+        JobFormats.configureMapOutput(job, JobOptions.parse(new String[]{"in", "out", "--map-compression", "bzip2"}));
+        assertEquals(true, job.getConfiguration().getBoolean(JobFormats.MAP_OUTPUT_COMPRESS, false));
+        assertEquals(BZip2Codec.class,
+                job.getConfiguration().getClass(JobFormats.MAP_OUTPUT_CODEC, null, CompressionCodec.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectGzipMapOutput() throws Exception
+    {
+        //the spill thread would fail on the missing gzip compressor and the job would hang
+        JobFormats.configureMapOutput(new Job(), JobOptions.parse(new String[]{"in", "out", "--map-compression", "gzip"}));
+    }
+}
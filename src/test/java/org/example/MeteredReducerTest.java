@@ -0,0 +1,29 @@
+package org.example;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+/**
+ * Unit test for the metering of the result lines
+ */
+public class MeteredReducerTest
+{
+    @Test
+    public void shouldMeasureTheValuesLikeTheirText()
+    {
+        long[] values = {0, 7, -7, 9, 10, -10, 99, 100, 1950, -291, Integer.MAX_VALUE, Integer.MIN_VALUE,
+                Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long value : values) {
+            assertEquals(Long.toString(value), Long.toString(value).length(),
+                    MeteredReducer.length(new LongWritable(value)));
+            if (value == (int) value)
+                assertEquals(Long.toString(value), Long.toString(value).length(),
+                        MeteredReducer.length(new IntWritable((int) value)));
+        }
+        assertEquals(9, MeteredReducer.length(new Text("1950-fall")));
+    }
+}
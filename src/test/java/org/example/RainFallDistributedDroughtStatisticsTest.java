@@ -0,0 +1,146 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.example.JobOptions;
+import org.example.RunReport;
+import org.example.TaskContexts;
+import org.example.YearStats;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for the distributed drought detection
+ */
+public class RainFallDistributedDroughtStatisticsTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldMatchSingleReducerForAnyNumberOfPartitions() throws Exception
+    {
+        Random random = new Random(7);
+        List<IntWritable> years = new ArrayList<>();
+        List<IntWritable> averages = new ArrayList<>();
+        List<Text> keys = new ArrayList<>();
+        List<YearStats> values = new ArrayList<>();
+        long sum = 0;
+        for (int year = 1900; year < 2000; year++) {
+            //long dry and wet spells so the droughts cross the partition boundaries
+            int avg = (year / 9) % 2 == 0 ? 80 + random.nextInt(40) : 130 + random.nextInt(40);
+            years.add(new IntWritable(year));
+            averages.add(new IntWritable(avg));
+            keys.add(new Text("yearAverage"));
+            values.add(new YearStats(year, avg, avg * 12));
+            sum += avg;
+        }
+        int multiAnnualAvg = (int) (sum / years.size());
+
+        TaskContexts.LineWriter<Writable, NullWritable> expected = new TaskContexts.LineWriter<>();
+        TaskContexts.runReducer(new RainFallDroughtStatistics.MyReducer(), new Configuration(),
+                Text.class, YearStats.class, keys, values, expected);
+
+        for (int partitions = 1; partitions <= 8; partitions++) {
+            Configuration conf = new Configuration();
+            conf.setInt(RainFallDistributedDroughtStatistics.AVERAGE, multiAnnualAvg);
+            conf.setInt(RainFallDistributedDroughtStatistics.MIN_YEAR, 1900);
+            conf.setInt(RainFallDistributedDroughtStatistics.MAX_YEAR, 1999);
+            RainFallDistributedDroughtStatistics.YearRangePartitioner partitioner =
+                    new RainFallDistributedDroughtStatistics.YearRangePartitioner();
+            partitioner.setConf(conf);
+
+            File runs = folder.newFolder("runs" + partitions);
+            for (int partition = 0; partition < partitions; partition++) {
+                List<IntWritable> partitionYears = new ArrayList<>();
+                List<IntWritable> partitionAverages = new ArrayList<>();
+                for (int i = 0; i < years.size(); i++) {
+                    if (partitioner.getPartition(years.get(i), averages.get(i), partitions) == partition) {
+                        partitionYears.add(years.get(i));
+                        partitionAverages.add(averages.get(i));
+                    }
+                }
+                TaskContexts.LineWriter<Text, Text> writer = new TaskContexts.LineWriter<>();
+                TaskContexts.runReducer(new RainFallDistributedDroughtStatistics.RunReducer(), conf,
+                        IntWritable.class, IntWritable.class, partitionYears, partitionAverages, writer);
+                Files.write(new File(runs, String.format("part-r-%05d", partition)).toPath(), writer.lines,
+                        StandardCharsets.UTF_8);
+            }
+
+            File result = new File(folder.getRoot(), "result" + partitions);
+            RainFallDistributedDroughtStatistics.merge(FileSystem.getLocal(conf), new Path(runs.toURI()),
+                    multiAnnualAvg, new Path(result.toURI()));
+            assertEquals("partitions " + partitions, expected.lines,
+                    Files.readAllLines(result.toPath(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void shouldLeaveOnlyTheResultAndTheSuccessMarker() throws Exception
+    {
+        File input = folder.newFile("input.txt");
+        List<String> lines = new ArrayList<>();
+        for (int year = 1950; year < 1970; year++) {
+            int month = year % 4 == 0 ? 5 : 15;
+            StringBuilder line = new StringBuilder().append(year);
+            for (int i = 0; i < 12; i++)
+                line.append(' ').append(month);
+            lines.add(line.append(' ').append(month).toString());
+        }
+        Files.write(input.toPath(), lines, StandardCharsets.UTF_8);
+        File parent = folder.newFolder("jobs");
+        File output = new File(parent, "out");
+
+        RunReport report = new RunReport("test");
+        assertEquals(true, RainFallDistributedDroughtStatistics.run(
+                JobOptions.parse(new String[]{input.getPath(), output.getPath(), "--reducers", "2"}), report));
+        //the runs of the partitions are deleted after the merge
+        String[] names = output.list((dir, name) -> !name.endsWith(".crc"));
+        Arrays.sort(names);
+        assertArrayEquals(new String[]{"_SUCCESS", "part-r-00000"}, names);
+        assertArrayEquals(new String[]{"out"}, parent.list());
+        assertEquals("The multi annual average is 12",
+                Files.readAllLines(new File(output, "part-r-00000").toPath(), StandardCharsets.UTF_8).get(0));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldNotOverwriteAnExistingOutput() throws Exception
+    {
+        File input = folder.newFile("input.txt");
+        Files.write(input.toPath(), Arrays.asList("1950 1 2 3 4 5 6 7 8 9 10 11 12 6"), StandardCharsets.UTF_8);
+        File output = folder.newFolder("out");
+        Files.write(new File(output, "part-r-00000").toPath(), Arrays.asList("an earlier result"), StandardCharsets.UTF_8);
+        RainFallDistributedDroughtStatistics.run(
+                JobOptions.parse(new String[]{input.getPath(), output.getPath(), "--reducers", "2"}), new RunReport("test"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectTheOutputFormatFlags() throws Exception
+    {
+        RainFallDistributedDroughtStatistics.run(JobOptions.parse(new String[]{"in", "out", "--compress", "gzip"}),
+                new RunReport("test"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectTheStructuredOutput() throws Exception
+    {
+        RainFallDistributedDroughtStatistics.run(JobOptions.parse(new String[]{"in", "out", "--structured"}),
+                new RunReport("test"));
+    }
+}
@@ -0,0 +1,102 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.example.JobFormats;
+import org.example.TaskContexts;
+import org.example.YearStats;
+import org.junit.Test;
+
+/**
+ * Unit test for the streaming drought detection
+ */
+public class RainFallDroughtStatisticsTest
+{
+    @Test
+    public void shouldMatchTheBufferingReducer() throws Exception
+    {
+        Random random = new Random(11);
+        List<IntWritable> years = new ArrayList<>();
+        List<IntWritable> averages = new ArrayList<>();
+        List<Text> keys = new ArrayList<>();
+        List<YearStats> values = new ArrayList<>();
+        long sum = 0;
+        //the last years are a run still open at the end, it is not reported
+        for (int year = 1900; year < 2000; year++) {
+            int avg = year > 1995 || (year / 7) % 2 == 0 ? 80 + random.nextInt(40) : 130 + random.nextInt(40);
+            years.add(new IntWritable(year));
+            averages.add(new IntWritable(avg));
+            keys.add(new Text("yearAverage"));
+            values.add(new YearStats(year, avg, avg * 12));
+            sum += avg;
+        }
+
+        TaskContexts.LineWriter<Writable, NullWritable> expected = new TaskContexts.LineWriter<>();
+        TaskContexts.runReducer(new RainFallDroughtStatistics.MyReducer(), new Configuration(),
+                Text.class, YearStats.class, keys, values, expected);
+
+        Configuration conf = new Configuration();
+        conf.setInt(RainFallDistributedDroughtStatistics.AVERAGE, (int) (sum / years.size()));
+        TaskContexts.LineWriter<Text, NullWritable> streaming = new TaskContexts.LineWriter<>();
+        TaskContexts.runReducer(new RainFallDroughtStatistics.StreamingReducer(), conf,
+                IntWritable.class, IntWritable.class, years, averages, streaming);
+        assertEquals(expected.lines, streaming.lines);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectStructuredOutputOfTheRangePartitionedJob() throws Exception
+    {
+        //the range partitioned job writes the merged lines itself, not the typed results
+        RainFallDroughtStatistics.main(new String[]{"in", "out", "--structured", "--reducers", "2"});
+    }
+
+    @Test
+    public void shouldWriteTheSameDroughtsAsTypedResults() throws Exception
+    {
+        Random random = new Random(5);
+        List<Text> keys = new ArrayList<>();
+        List<YearStats> values = new ArrayList<>();
+        for (int year = 1900; year < 2000; year++) {
+            int avg = (year / 5) % 2 == 0 ? 80 + random.nextInt(40) : 130 + random.nextInt(40);
+            keys.add(new Text("yearAverage"));
+            values.add(new YearStats(year, avg, avg * 12));
+        }
+        Configuration conf = new Configuration();
+        conf.set(RainFallDroughtStatistics.RULES, "mean:100:3,median:90:2");
+        TaskContexts.LineWriter<Writable, NullWritable> lines = new TaskContexts.LineWriter<>();
+        TaskContexts.runReducer(new RainFallDroughtStatistics.MyReducer(), conf,
+                Text.class, YearStats.class, keys, values, lines);
+        conf.setBoolean(JobFormats.STRUCTURED, true);
+        TaskContexts.LineWriter<Writable, NullWritable> results = new TaskContexts.LineWriter<>();
+        TaskContexts.runReducer(new RainFallDroughtStatistics.MyReducer(), conf,
+                Text.class, YearStats.class, keys, values, results);
+
+        //a result for every line, in the same order
+        assertEquals(lines.lines.size(), results.lines.size());
+        assertTrue(lines.lines.size() > 2);
+        for (int i = 0; i < lines.lines.size(); i++) {
+            String line = lines.lines.get(i);
+            String rule = line.substring(0, line.indexOf('\t'));
+            String result = results.lines.get(i);
+            assertTrue(result, result.contains("\"rule\":\"" + rule + "\""));
+            if (line.contains("drought")) {
+                //"[1905 - 99, 1906 - 101]" holds the years and averages of the result
+                String years = result.substring(result.indexOf("\"years\":[") + 9, result.indexOf(']'));
+                assertEquals(line.substring(line.indexOf('[') + 1, line.indexOf(' ', line.indexOf('['))),
+                        years.split(",")[0]);
+            } else {
+                assertTrue(result, result.startsWith(rule.startsWith("median")
+                        ? "{\"statistic\":\"multi_annual_median\"" : "{\"statistic\":\"multi_annual_average\""));
+                assertTrue(result, result.endsWith(line.substring(line.lastIndexOf(' ') + 1) + "}"));
+            }
+        }
+    }
+}
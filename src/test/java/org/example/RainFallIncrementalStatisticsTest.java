@@ -0,0 +1,18 @@
+import org.apache.hadoop.conf.Configuration;
+import org.example.JobOptions;
+import org.example.RunReport;
+import org.junit.Test;
+
+/**
+ * Unit test for the incremental statistics
+ */
+public class RainFallIncrementalStatisticsTest
+{
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectTheBinaryFiles() throws Exception
+    {
+        //a binary file is rewritten with a new sync marker, its processed length can not be resumed
+        RainFallIncrementalStatistics.run(JobOptions.parse(new String[]{"in", "out", "--state", "state", "--binary"}),
+                new Configuration(), new RunReport("test"));
+    }
+}
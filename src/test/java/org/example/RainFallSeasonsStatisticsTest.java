@@ -0,0 +1,43 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.example.RainfallCounters;
+import org.example.SeasonKey;
+import org.example.TaskContexts;
+import org.junit.Test;
+
+/**
+ * Unit test for the seasons statistics
+ */
+public class RainFallSeasonsStatisticsTest
+{
+    @Test
+    public void shouldSkipTheYearsOutOfTheSeasonKeyRange() throws Exception
+    {
+        String months = " 1 2 3 4 5 6 7 8 9 10 11 12 6";
+        TaskContexts.ListReader<Writable> reader = new TaskContexts.ListReader<>(Arrays.<Writable>asList(
+                new Text(SeasonKey.MAX_YEAR + months), new Text((SeasonKey.MAX_YEAR + 1) + months),
+                new Text(SeasonKey.MIN_YEAR + months), new Text((SeasonKey.MIN_YEAR - 1) + months)));
+        TaskContexts.LineWriter<SeasonKey, IntWritable> writer = new TaskContexts.LineWriter<>();
+        RainFallSeasonsStatistics.MyMapper mapper = new RainFallSeasonsStatistics.MyMapper();
+        Mapper<LongWritable, Writable, SeasonKey, IntWritable>.Context context =
+                TaskContexts.mapContext(mapper, new Configuration(), reader, writer);
+        mapper.run(context);
+        //the years next to the limits would wrap into other years
+        assertEquals(2, context.getCounter(RainfallCounters.MALFORMED_ROWS).getValue());
+        assertEquals(2, context.getCounter(RainfallCounters.ROWS_PARSED).getValue());
+        assertEquals(8, writer.lines.size());
+        for (String line : writer.lines) {
+            String year = line.substring(0, line.lastIndexOf('-', line.indexOf('\t')));
+            assertEquals(line, true, year.equals(Integer.toString(SeasonKey.MAX_YEAR))
+                    || year.equals(Integer.toString(SeasonKey.MIN_YEAR)));
+        }
+    }
+}
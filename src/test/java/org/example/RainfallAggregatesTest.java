@@ -0,0 +1,121 @@
+package org.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Unit test for the incremental rainfall aggregates
+ */
+public class RainfallAggregatesTest
+{
+    @Test
+    public void shouldDetectTheSameDroughtsWhenRowsAreAppended() throws IOException
+    {
+        RainfallAggregates full = new RainfallAggregates();
+        RainfallAggregates incremental = new RainfallAggregates();
+        RainfallRecord record = new RainfallRecord();
+        int year = 1950;
+        //every chunk of 6 years keeps the multi annual average at 100, so only the tail is checked
+        for (int chunk = 0; chunk < 5; chunk++) {
+            RainfallAggregates appended = new RainfallAggregates();
+            for (int i = 0; i < 6; i++) {
+                int average = i < 3 ? 50 + chunk : 150 - chunk;
+                record.set(year++, new int[RainfallRecord.MONTHS], average);
+                full.add(record);
+                appended.add(record);
+            }
+            incremental.merge(appended);
+            assertEquals(full.droughtLines(), incremental.droughtLines());
+            incremental = roundTrip(incremental);
+        }
+        assertEquals(6, full.droughtLines().size());
+
+        //a row of an old year changes the settled years, the droughts are detected again
+        record.set(1951, new int[RainfallRecord.MONTHS], 200);
+        full.add(record);
+        incremental.add(record);
+        assertEquals(full.droughtLines(), incremental.droughtLines());
+        assertEquals(full.minMaxLines(), incremental.minMaxLines());
+        assertEquals(full.seasonsLines(), incremental.seasonsLines());
+    }
+
+    @Test
+    public void shouldOrderTheDroughtYearsLikeTheYearTable()
+    {
+        RainfallAggregates aggregates = new RainfallAggregates();
+        RainfallRecord record = new RainfallRecord();
+        //as text 1000 to 1002 would sort before 997 to 999 and split the drought
+        int[] averages = {200, 50, 50, 50, 50, 50, 50, 200};
+        for (int i = 0; i < averages.length; i++) {
+            record.set(996 + i, new int[RainfallRecord.MONTHS], averages[i]);
+            aggregates.add(record);
+        }
+        List<String> lines = aggregates.droughtLines();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1), lines.get(1).contains("[997 - 50, 998 - 50, 999 - 50, 1000 - 50, 1001 - 50, 1002 - 50]"));
+        List<String> rules = aggregates.droughtLines(DroughtRule.parseAll(DroughtRule.DEFAULT));
+        for (int i = 0; i < lines.size(); i++)
+            assertEquals(DroughtRule.DEFAULT + "\t" + lines.get(i), rules.get(i));
+    }
+
+    @Test
+    public void shouldSaveADroughtLineLongerThan64KB() throws IOException
+    {
+        RainfallAggregates aggregates = new RainfallAggregates();
+        RainfallRecord record = new RainfallRecord();
+        //10000 dry years are one drought line, then 10000 wet years close it
+        for (int year = 10000; year < 30000; year++) {
+            record.set(year, new int[RainfallRecord.MONTHS], year < 20000 ? 0 : 200);
+            aggregates.add(record);
+        }
+        List<String> lines = aggregates.droughtLines();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).length() > 65535);
+        assertEquals(lines, roundTrip(aggregates).droughtLines());
+    }
+
+    @Test
+    public void shouldLoadThePreviousStateWhenASaveStoppedBetweenItsRenames() throws IOException
+    {
+        Configuration conf = new Configuration();
+        File directory = Files.createTempDirectory("state").toFile();
+        Path path = new Path(new File(directory, "state").toURI());
+        IncrementalState state = new IncrementalState();
+        state.getProcessed().put("input", 42L);
+        state.save(path, conf);
+        state.getProcessed().put("input", 84L);
+        state.save(path, conf);
+        assertFalse(new File(directory, ".state.previous").exists());
+        assertEquals(Long.valueOf(84), IncrementalState.load(path, conf).getProcessed().get("input"));
+
+        //the state file was renamed aside and the new one not yet in place
+        assertTrue(new File(directory, "state").renameTo(new File(directory, ".state.previous")));
+        assertEquals(Long.valueOf(84), IncrementalState.load(path, conf).getProcessed().get("input"));
+        state.getProcessed().put("input", 126L);
+        state.save(path, conf);
+        assertEquals(Long.valueOf(126), IncrementalState.load(path, conf).getProcessed().get("input"));
+    }
+
+    private static RainfallAggregates roundTrip(RainfallAggregates aggregates) throws IOException
+    {
+        DataOutputBuffer out = new DataOutputBuffer();
+        aggregates.write(out);
+        DataInputBuffer in = new DataInputBuffer();
+        in.reset(out.getData(), out.getLength());
+        RainfallAggregates copy = new RainfallAggregates();
+        copy.readFields(in);
+        return copy;
+    }
+}
@@ -0,0 +1,107 @@
+package org.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for the csv data file input format
+ */
+public class RainfallCsvInputFormatTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldCombineSmallFilesAndReadEveryRowOnce() throws Exception
+    {
+        File input = folder.newFolder("stations");
+        List<String> expected = new ArrayList<>();
+        for (int station = 1; station <= 20; station++) {
+            StringBuilder csv = new StringBuilder();
+            for (int year = 1950; year < 1960; year++) {
+                StringBuilder line = new StringBuilder().append(station).append(',').append(year);
+                for (int month = 0; month < 12; month++)
+                    line.append(',').append((station * year + month * 7) % 200);
+                csv.append(line).append('\n');
+                //the record of the line is the parsed data file line of the data file parser
+                String parsed = DataFileParser.parseLine(line.toString());
+                expected.add(parsed.substring(0, parsed.length() - 1));
+            }
+            //blank and malformed lines are skipped
+            csv.append("\n1,2,3\n");
+            Files.write(new File(input, "station-" + station + ".csv").toPath(),
+                    csv.toString().getBytes(StandardCharsets.US_ASCII));
+        }
+        Collections.sort(expected);
+
+        //the default max split size packs every file into one split, a blank and a malformed line in each file
+        assertEquals(1, read(input, JobFormats.DEFAULT_MAX_SPLIT_BYTES, expected, 40));
+        //a max split size below the file size closes a split after every file
+        assertEquals(20, read(input, 300, expected, 40));
+    }
+
+    @Test
+    public void shouldSkipTheLinesWithAnEmptyField() throws Exception
+    {
+        File input = folder.newFolder("empty");
+        String line = "5,1998,1,2,3,4,5,6,7,8,9,10,11,12";
+        //an empty month would shift the station into the year, a trailing comma is an empty 15th field
+        String csv = line + "\n" + line.replace(",3,", ",,") + "\n" + line + ",\n" + "1998,1,2,3,4,5,6,7,8,9,10,11,12,\n";
+        Files.write(new File(input, "station-5.csv").toPath(), csv.getBytes(StandardCharsets.US_ASCII));
+        String parsed = DataFileParser.parseLine(line);
+        read(input, JobFormats.DEFAULT_MAX_SPLIT_BYTES,
+                Collections.singletonList(parsed.substring(0, parsed.length() - 1)), 3);
+    }
+
+    /**
+     * Read every split of the input and compare the rows with the expected parsed lines
+     * @return the amount of splits
+     */
+    private static int read(File input, long maxSplitBytes, List<String> expected, long skipped) throws Exception
+    {
+        Configuration conf = new Configuration();
+        conf.setLong(JobFormats.MAX_SPLIT_SIZE, maxSplitBytes);
+        Job job = new Job(conf);
+        FileInputFormat.setInputPaths(job, new org.apache.hadoop.fs.Path(input.toURI()));
+        RainfallCsvInputFormat format = new RainfallCsvInputFormat();
+        List<InputSplit> splits = format.getSplits(job);
+        //the readers get the map context like in a map task, the skipped lines are counted there
+        Mapper<LongWritable, RainfallRecord, Text, Text>.Context context = TaskContexts.mapContext(
+                new Mapper<LongWritable, RainfallRecord, Text, Text>(), job.getConfiguration(), null);
+        List<String> rows = new ArrayList<>();
+        for (InputSplit split : splits) {
+            RecordReader<LongWritable, RainfallRecord> reader = format.createRecordReader(split, context);
+            reader.initialize(split, context);
+            while (reader.nextKeyValue())
+                rows.add(reader.getCurrentValue().toString());
+            reader.close();
+        }
+        Collections.sort(rows);
+        assertEquals(expected, rows);
+        assertEquals(skipped, context.getCounter(RainfallCounters.MALFORMED_ROWS).getValue());
+        //the records parse back like the parsed data file lines
+        RainfallRecord record = new RainfallRecord();
+        assertTrue(record.parse(new Text(rows.get(0))));
+        assertEquals(rows.get(0), record.toString());
+        return splits.size();
+    }
+}
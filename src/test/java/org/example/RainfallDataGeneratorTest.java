@@ -0,0 +1,113 @@
+package org.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+/**
+ * Unit test for the synthetic rainfall data generator
+ */
+public class RainfallDataGeneratorTest
+{
+    @Test
+    public void shouldWriteTheSameRowsInAnyAmountOfFiles() throws Exception
+    {
+        Path one = Files.createTempDirectory("generated");
+        Path four = Files.createTempDirectory("generated");
+        RainfallDataGenerator generator = new RainfallDataGenerator().seed(7).stations(3);
+        long bytes = generator.generate(one, 1000, 1, 1);
+        assertEquals(bytes, generator.generate(four, 1000, 4, 4));
+        assertEquals(4, list(four).size());
+        assertEquals(new String(concat(one), StandardCharsets.UTF_8), new String(concat(four), StandardCharsets.UTF_8));
+        String first = Files.readAllLines(list(four).get(0)).get(0);
+        assertTrue(first, first.startsWith("1,1900,"));
+        assertEquals(14, first.split(",").length);
+    }
+
+    @Test
+    public void shouldPlantTheDroughtsAndTheExtremes() throws Exception
+    {
+        Path directory = Files.createTempDirectory("generated");
+        RainfallDataGenerator generator = new RainfallDataGenerator().seed(11).droughts(20, 3).extremes(5).parsed(true);
+        //100 runs of 3 years, the rows end on a full period
+        generator.generate(directory, 2000, 3, 2);
+        RainfallAggregates aggregates = new RainfallAggregates();
+        RainfallSketches sketches = new RainfallSketches(5, QuantileSketch.DEFAULT_SIZE);
+        RainfallRecord record = new RainfallRecord();
+        for (Path file : list(directory)) {
+            for (String line : Files.readAllLines(file)) {
+                assertTrue(line, record.parse(new Text(line)));
+                assertEquals(record.getSum() / RainfallRecord.MONTHS, record.getAverage());
+                aggregates.add(record);
+                sketches.add(record);
+            }
+        }
+        List<String> droughts = aggregates.droughtLines();
+        assertEquals(101, droughts.size());
+        for (int run = 0; run < 100; run++) {
+            int year = 1900 + run * 20 + 10;
+            assertTrue(droughts.get(run + 1), droughts.get(run + 1).startsWith(
+                    "The following years detected as drought [" + year + " - "));
+            assertEquals(3, droughts.get(run + 1).split(",").length);
+        }
+
+        //the planted months top the extremes, the first planted is the wettest
+        List<String> lines = sketches.lines(new double[0]);
+        for (int rank = 1; rank <= 5; rank++) {
+            assertTrue(lines.get(rank), lines.get(rank).endsWith("\t" + (RainfallDataGenerator.BASE * 20 + 5 - rank + 1)));
+            assertTrue(lines.get(5 + rank), lines.get(5 + rank).endsWith("\t0"));
+        }
+    }
+
+    @Test
+    public void shouldRejectALastYearOverTheSeasonKeyLimit() throws Exception
+    {
+        Path directory = Files.createTempDirectory("generated");
+        RainfallDataGenerator generator = new RainfallDataGenerator().firstYear(SeasonKey.MAX_YEAR - 99);
+        generator.generate(directory, 100, 1, 1);
+        List<String> lines = Files.readAllLines(list(directory).get(0));
+        assertTrue(lines.get(99).startsWith(SeasonKey.MAX_YEAR + ","));
+        try {
+            generator.generate(directory, 101, 1, 1);
+            fail("101 years end after the limit");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(Integer.toString(SeasonKey.MAX_YEAR)));
+        }
+        //the rows of two stations end on the limit
+        generator.stations(2).generate(directory, 200, 1, 1);
+        try {
+            generator.generate(directory, 201, 1, 1);
+            fail("101 years of a station end after the limit");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(Long.toString(SeasonKey.MAX_YEAR + 1L)));
+        }
+    }
+
+    private static List<Path> list(Path directory) throws Exception
+    {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.sorted().forEach(files::add);
+        }
+        return files;
+    }
+
+    private static byte[] concat(Path directory) throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (Path file : list(directory))
+            bytes.write(Files.readAllBytes(file));
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,134 @@
+package org.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for the memory mapped rainfall index
+ */
+public class RainfallIndexTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldAnswerRangeQueriesLikeAScan() throws Exception
+    {
+        int firstYear = 1900;
+        int years = 70;
+        //the months of every year, null for the years without rows
+        int[][] months = new int[years][];
+        Random random = new Random(42);
+        RainfallIndex.Builder builder = new RainfallIndex.Builder();
+        RainfallRecord record = new RainfallRecord();
+        for (int y = 0; y < years; y++) {
+            if (y % 7 == 3)
+                continue;
+            months[y] = new int[RainfallRecord.MONTHS];
+            //some years have two rows, they are summed
+            for (int row = 0; row < (y % 5 == 0 ? 2 : 1); row++) {
+                int[] values = new int[RainfallRecord.MONTHS];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = random.nextInt(300);
+                    months[y][i] += values[i];
+                }
+                record.set(firstYear + y, values, 0);
+                builder.add(record);
+            }
+        }
+        Path file = folder.getRoot().toPath().resolve(RainfallIndex.FILE_NAME);
+        builder.write(file);
+        RainfallIndex index = RainfallIndex.open(file);
+        assertEquals(firstYear, index.getFirstYear());
+        assertEquals(firstYear + years - 1, index.getLastYear());
+
+        for (int query = 0; query < 2000; query++) {
+            int from = random.nextInt(years * 12);
+            int to = from + random.nextInt(years * 12 - from);
+            long sum = 0;
+            int count = 0;
+            int max = -1;
+            int min = -1;
+            for (int m = from; m <= to; m++) {
+                int[] year = months[m / 12];
+                if (year == null)
+                    continue;
+                int value = year[m % 12];
+                sum += value;
+                count++;
+                if (max < 0 || value > months[max / 12][max % 12])
+                    max = m;
+                if (min < 0 || value < months[min / 12][min % 12])
+                    min = m;
+            }
+            int fromYear = firstYear + from / 12;
+            int toYear = firstYear + to / 12;
+            assertEquals(sum, index.monthSum(fromYear, from % 12 + 1, toYear, to % 12 + 1));
+            if (count == 0) {
+                assertNull(index.maxMonth(fromYear, from % 12 + 1, toYear, to % 12 + 1));
+                continue;
+            }
+            assertEquals((double) sum / count, index.monthAverage(fromYear, from % 12 + 1, toYear, to % 12 + 1), 1e-9);
+            assertEquals((max % 12 + 1) + "/" + (firstYear + max / 12),
+                    index.maxMonth(fromYear, from % 12 + 1, toYear, to % 12 + 1).getLabel());
+            assertEquals((min % 12 + 1) + "/" + (firstYear + min / 12),
+                    index.minMonth(fromYear, from % 12 + 1, toYear, to % 12 + 1).getLabel());
+
+            long winterSum = 0;
+            int wettest = -1;
+            int wettestValue = 0;
+            for (int y = from / 12; y <= to / 12; y++) {
+                if (months[y] == null)
+                    continue;
+                int winter = months[y][0] + months[y][1] + months[y][11];
+                winterSum += winter;
+                if (wettest < 0 || winter > wettestValue) {
+                    wettest = y;
+                    wettestValue = winter;
+                }
+            }
+            assertEquals(winterSum, index.seasonSum(SeasonKey.WINTER, fromYear, toYear));
+            if (wettest >= 0) {
+                RainfallIndex.Extreme extreme = index.maxSeason(SeasonKey.WINTER, fromYear, toYear);
+                assertEquals(firstYear + wettest, extreme.getYear());
+                assertEquals(wettestValue, extreme.getValue());
+            }
+        }
+        //the ranges are clamped to the indexed years
+        assertEquals(index.yearSum(firstYear, firstYear + years - 1), index.yearSum(0, 3000));
+        assertNull(index.maxYear(2100, 2200));
+    }
+
+    @Test
+    public void shouldRejectAYearRangeJustOverTheMappingLimit() throws Exception
+    {
+        //the limit is where the file passes 2 GB, far below a million years
+        assertTrue(RainfallIndex.MAX_YEARS < 1000000);
+        assertTrue(RainfallIndex.fileSize(RainfallIndex.MAX_YEARS) <= Integer.MAX_VALUE);
+        assertTrue(RainfallIndex.fileSize(RainfallIndex.MAX_YEARS + 1) > Integer.MAX_VALUE);
+
+        RainfallIndex.Builder builder = new RainfallIndex.Builder();
+        RainfallRecord record = new RainfallRecord();
+        record.set(0, new int[RainfallRecord.MONTHS], 0);
+        builder.add(record);
+        record.set(RainfallIndex.MAX_YEARS, new int[RainfallRecord.MONTHS], 0);
+        builder.add(record);
+        try {
+            builder.write(folder.getRoot().toPath().resolve(RainfallIndex.FILE_NAME));
+            fail("a span of MAX_YEARS + 1 years does not fit a mapping");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("too large"));
+        }
+    }
+}
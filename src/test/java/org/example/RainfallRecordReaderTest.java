@@ -0,0 +1,139 @@
+package org.example;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.hadoop.io.compress.GzipCodec;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for the binary parsed data file reader
+ */
+public class RainfallRecordReaderTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldReadEveryRecordOnceAcrossSplits() throws Exception
+    {
+        StringBuilder csv = new StringBuilder();
+        for (int year = 0; year < 5000; year++) {
+            csv.append(year);
+            for (int month = 0; month < 12; month++)
+                csv.append(',').append((year + month) % 300);
+            csv.append('\n');
+        }
+        Path input = folder.newFile("data.csv").toPath();
+        Files.write(input, csv.toString().getBytes(StandardCharsets.US_ASCII));
+        File output = new File(folder.getRoot(), "parsed.bin");
+        assertEquals(5000, new StreamingDataFileParser(20000, 3).parseBinary(input, output.toPath()));
+
+        TaskAttemptContext context = new TaskAttemptContext(new Configuration(), new TaskAttemptID());
+        org.apache.hadoop.fs.Path file = new org.apache.hadoop.fs.Path(output.toURI());
+        long splitSize = 7777;
+        int expectedYear = 0;
+        for (long start = 0; start < output.length(); start += splitSize) {
+            RainfallRecordReader reader = new RainfallRecordReader();
+            reader.initialize(new FileSplit(file, start, Math.min(splitSize, output.length() - start), null), context);
+            while (reader.nextKeyValue()) {
+                RainfallRecord record = reader.getCurrentValue();
+                assertEquals(expectedYear, record.getYear());
+                assertEquals((expectedYear + 11) % 300, record.getMonth(11));
+                assertEquals(record.getSum() / 12, record.getAverage());
+                expectedYear++;
+            }
+            reader.close();
+        }
+        assertEquals(5000, expectedYear);
+    }
+
+    @Test
+    public void shouldReadCompressedAndSequenceFiles() throws Exception
+    {
+        StringBuilder csv = new StringBuilder();
+        for (int year = 0; year < 3000; year++) {
+            csv.append(year);
+            for (int month = 0; month < 12; month++)
+                csv.append(',').append((year * 7 + month) % 300);
+            csv.append('\n');
+        }
+        Path input = folder.newFile("data.csv").toPath();
+        Files.write(input, csv.toString().getBytes(StandardCharsets.US_ASCII));
+        Configuration conf = new Configuration();
+
+        //a binary file compressed with gzip is one split
+        File binary = new File(folder.getRoot(), "parsed.bin");
+        new StreamingDataFileParser(10000, 2).parseBinary(input, binary.toPath());
+        File compressed = new File(folder.getRoot(), "parsed.bin.gz");
+        GzipCodec gzip = new GzipCodec();
+        gzip.setConf(conf);
+        try (InputStream in = Files.newInputStream(binary.toPath());
+             OutputStream out = gzip.createOutputStream(Files.newOutputStream(compressed.toPath()))) {
+            byte[] buffer = new byte[4096];
+            for (int read; (read = in.read(buffer)) > 0; )
+                out.write(buffer, 0, read);
+        }
+        assertEquals(3000, readAll(conf, compressed, compressed.length()));
+
+        //a block compressed SequenceFile splits on its own sync markers
+        File sequence = new File(folder.getRoot(), "parsed.seq");
+        DefaultCodec deflate = new DefaultCodec();
+        deflate.setConf(conf);
+        RainfallRecord record = new RainfallRecord();
+        try (SequenceFile.Writer writer = SequenceFile.createWriter(FileSystem.getLocal(conf), conf,
+                new org.apache.hadoop.fs.Path(sequence.toURI()), LongWritable.class, RainfallRecord.class,
+                SequenceFile.CompressionType.BLOCK, deflate)) {
+            for (int year = 0; year < 3000; year++) {
+                int[] months = new int[RainfallRecord.MONTHS];
+                for (int month = 0; month < months.length; month++)
+                    months[month] = (year * 7 + month) % 300;
+                record.set(year, months, 0);
+                writer.append(new LongWritable(year), record);
+                //small blocks, so there are several sync markers
+                if (year % 500 == 499)
+                    writer.sync();
+            }
+        }
+        assertEquals(3000, readAll(conf, sequence, 3001));
+    }
+
+    /**
+     * Read the file split by split and check the years come in order
+     * @return the number of records
+     */
+    private static int readAll(Configuration conf, File file, long splitSize) throws Exception
+    {
+        TaskAttemptContext context = new TaskAttemptContext(conf, new TaskAttemptID());
+        org.apache.hadoop.fs.Path path = new org.apache.hadoop.fs.Path(file.toURI());
+        int expectedYear = 0;
+        for (long start = 0; start < file.length(); start += splitSize) {
+            RainfallRecordReader reader = new RainfallRecordReader();
+            reader.initialize(new FileSplit(path, start, Math.min(splitSize, file.length() - start), null), context);
+            while (reader.nextKeyValue()) {
+                RainfallRecord record = reader.getCurrentValue();
+                assertEquals(expectedYear, record.getYear());
+                assertEquals((expectedYear * 7 + 11) % 300, record.getMonth(11));
+                expectedYear++;
+            }
+            reader.close();
+        }
+        return expectedYear;
+    }
+}
@@ -0,0 +1,56 @@
+package org.example;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.junit.Test;
+
+/**
+ * Unit test for the typed results of the structured output
+ */
+public class RainfallResultTest
+{
+    @Test
+    public void shouldWriteTheFieldsOfItsStatisticAsJson()
+    {
+        RainfallResult result = new RainfallResult();
+        assertEquals("{\"statistic\":\"year_total\",\"year\":1950,\"value\":1234}",
+                result.set(RainfallResult.Statistic.YEAR_TOTAL, 1950, 0, 1234).toString());
+        assertEquals("{\"statistic\":\"max_month\",\"year\":1954,\"month\":8,\"value\":300}",
+                result.set(RainfallResult.Statistic.MAX_MONTH, 1954, 8, 300).toString());
+        assertEquals("{\"statistic\":\"min_season\",\"year\":1960,\"season\":\"winter\",\"value\":12}",
+                result.set(RainfallResult.Statistic.MIN_SEASON, 1960, SeasonKey.WINTER, 12).toString());
+        assertEquals("{\"statistic\":\"multi_annual_median\",\"rule\":\"median:90:2\",\"value\":140}",
+                result.setBaseline(RainfallResult.Statistic.MULTI_ANNUAL_MEDIAN, "median:90:2", 140).toString());
+        assertEquals("{\"statistic\":\"drought\",\"years\":[1961,1962,1963],\"averages\":[101,135,146]}",
+                result.setDrought("", new int[]{1960, 1961, 1962, 1963, 1964}, new int[]{90, 101, 135, 146, 99}, 1, 4)
+                        .toString());
+    }
+
+    @Test
+    public void shouldReadBackWhatItWrites() throws Exception
+    {
+        RainfallResult result = new RainfallResult().setDrought("mean:80:2",
+                new int[]{1961, 1962, 1963, 1964}, new int[]{101, 135, 146, 120}, 0, 4);
+        DataOutputBuffer out = new DataOutputBuffer();
+        result.write(out);
+        assertEquals(result.getSize(), out.getLength());
+        new RainfallResult().set(RainfallResult.Statistic.MAX_YEAR, 1999, 0, 5000).write(out);
+
+        //a reused result reads a drought, then a shorter result
+        DataInputBuffer in = new DataInputBuffer();
+        in.reset(out.getData(), out.getLength());
+        RainfallResult read = new RainfallResult();
+        read.readFields(in);
+        assertEquals(result.toString(), read.toString());
+        assertArrayEquals(new int[]{1961, 1962, 1963, 1964}, read.getYears());
+        read.readFields(in);
+        assertEquals(RainfallResult.Statistic.MAX_YEAR, read.getStatistic());
+        assertEquals(1999, read.getYear());
+        assertEquals(5000, read.getValue());
+        assertEquals(0, read.getYears().length);
+        assertEquals("{\"statistic\":\"max_year\",\"year\":1999,\"value\":5000}", read.toString());
+    }
+}
@@ -0,0 +1,146 @@
+package org.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit test for the top K and quantile sketches
+ */
+public class RainfallSketchesTest
+{
+    @Test
+    public void shouldKeepTheTopValuesOfMergedParts() throws Exception
+    {
+        Random random = new Random(3);
+        List<RainfallRecord> rows = new ArrayList<>();
+        List<int[]> months = new ArrayList<>();
+        for (int year = 1800; year < 2000; year++) {
+            int[] values = new int[RainfallRecord.MONTHS];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(100);
+                months.add(new int[]{values[i], year, i + 1});
+            }
+            RainfallRecord row = new RainfallRecord();
+            row.set(year, values, 0);
+            rows.add(row);
+        }
+        //the largest values first, equal values by year and month
+        months.sort((a, b) -> a[0] != b[0] ? Integer.compare(b[0], a[0])
+                : a[1] != b[1] ? Integer.compare(a[1], b[1]) : Integer.compare(a[2], b[2]));
+
+        RainfallSketches whole = new RainfallSketches(20, 64);
+        for (RainfallRecord row : rows)
+            whole.add(row);
+        //three mappers, the parts are serialized like the map output
+        RainfallSketches merged = new RainfallSketches(20, 64);
+        for (int part = 0; part < 3; part++) {
+            RainfallSketches sketches = new RainfallSketches(20, 64);
+            for (int i = part; i < rows.size(); i += 3)
+                sketches.add(rows.get(i));
+            merged.merge(roundTrip(sketches));
+        }
+        List<String> lines = merged.lines(new double[]{0.5});
+        for (int rank = 1; rank <= 20; rank++) {
+            int[] expected = months.get(rank - 1);
+            assertEquals("wettest month " + rank + "\t" + expected[2] + "/" + expected[1] + "\t" + expected[0],
+                    lines.get(rank));
+        }
+        List<String> wholeLines = whole.lines(new double[]{0.5});
+        assertEquals(wholeLines.subList(0, 6 * 20 + 1), lines.subList(0, 6 * 20 + 1));
+        assertEquals(2400, merged.getMonths());
+    }
+
+    @Test
+    public void shouldRankTheRowsOfEachStation() throws Exception
+    {
+        RainfallSketches sketches = new RainfallSketches(2, 64);
+        RainfallRecord row = new RainfallRecord();
+        int[] values = new int[RainfallRecord.MONTHS];
+        //two stations share a year, a row is ranked on its own and labelled with its station
+        Arrays.fill(values, 10);
+        row.set(3, 1950, values, 0);
+        sketches.add(row);
+        Arrays.fill(values, 20);
+        row.set(5, 1950, values, 0);
+        sketches.add(row);
+        Arrays.fill(values, 1);
+        row.set(3, 1951, values, 0);
+        sketches.add(row);
+        List<String> lines = roundTrip(sketches).lines(new double[0]);
+        assertTrue(lines.contains("wettest month 1\t5:1/1950\t20"));
+        //the seasons of a row are equal, the earlier season ranks first
+        assertTrue(lines.contains("wettest row season 1\t5:" + new SeasonKey(1950, (byte) 0) + "\t60"));
+        assertTrue(lines.contains("wettest row 1\t5:1950\t240"));
+        assertTrue(lines.contains("wettest row 2\t3:1950\t120"));
+        assertTrue(lines.contains("driest row 1\t3:1951\t12"));
+    }
+
+    @Test
+    public void shouldEstimateTheQuantiles()
+    {
+        Random random = new Random(5);
+        int n = 200000;
+        int[] values = new int[n];
+        QuantileSketch merged = new QuantileSketch(256);
+        QuantileSketch part = new QuantileSketch(256);
+        for (int i = 0; i < n; i++) {
+            values[i] = (int) (-80 * Math.log(random.nextDouble()));
+            part.add(values[i]);
+            if (i % 30000 == 29999) {
+                merged.merge(part);
+                part = new QuantileSketch(256);
+            }
+        }
+        merged.merge(part);
+        assertEquals(n, merged.getCount());
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double q : new double[]{0.01, 0.05, 0.25, 0.5, 0.75, 0.95, 0.99}) {
+            int estimate = merged.quantile(q);
+            //the rank of the estimate is close to the requested rank
+            int low = lowerBound(sorted, estimate);
+            int high = lowerBound(sorted, estimate + 1);
+            long rank = (long) Math.ceil(q * n);
+            double error = rank < low ? low - rank : rank > high ? rank - high : 0;
+            assertTrue("quantile " + q + " rank error " + error / n, error / n < 0.02);
+        }
+
+        //a small sketch is exact
+        QuantileSketch small = new QuantileSketch(256);
+        for (int i = 1; i <= 100; i++)
+            small.add(i);
+        assertEquals(5, small.quantile(0.05));
+        assertEquals(50, small.quantile(0.5));
+        assertEquals(100, small.quantile(1));
+    }
+
+    private static int lowerBound(int[] sorted, int value)
+    {
+        int index = Arrays.binarySearch(sorted, value);
+        if (index < 0)
+            return -index - 1;
+        while (index > 0 && sorted[index - 1] == value)
+            index--;
+        return index;
+    }
+
+    private static RainfallSketches roundTrip(RainfallSketches sketches) throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sketches.write(new DataOutputStream(bytes));
+        RainfallSketches copy = new RainfallSketches();
+        copy.readFields(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        return copy;
+    }
+}
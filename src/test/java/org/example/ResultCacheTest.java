@@ -0,0 +1,100 @@
+package org.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+/**
+ * Unit test for the content addressed result cache
+ */
+public class ResultCacheTest
+{
+    @Test
+    public void shouldRestoreTheOutputOfTheSameInputAndFlags() throws Exception
+    {
+        File root = Files.createTempDirectory("cache").toFile();
+        File input = new File(root, "input");
+        write(input, "1950 1 2 3 4 5 6 7 8 9 10 11 12 6\n");
+        String cache = new File(root, "cache").getPath();
+
+        //the first run misses and stores its output
+        assertFalse(run(input, new File(root, "out1"), cache, "--binary"));
+        //the same run hits, the report and the flags of the cache do not count
+        assertTrue(run(input, new File(root, "out2"), cache, "--binary", "--report", "r.json"));
+        assertEquals("result\n", read(new File(root, "out2/part-r-00000")));
+        assertFalse(new File(root, "out2/" + ResultCache.USED_FILE).exists());
+        //other flags or another input content miss
+        assertFalse(run(input, new File(root, "out3"), cache));
+        long modified = input.lastModified();
+        write(input, "1950 1 2 3 4 5 6 7 8 9 10 11 12 7\n");
+        assertTrue(input.setLastModified(modified));
+        assertFalse(run(input, new File(root, "out4"), cache, "--binary"));
+        assertEquals(3, new File(cache).list().length);
+    }
+
+    @Test
+    public void shouldEvictTheEntriesUsedLeastRecently() throws Exception
+    {
+        File root = Files.createTempDirectory("cache").toFile();
+        String cache = new File(root, "cache").getPath();
+        File[] inputs = new File[3];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = new File(root, "input" + i);
+            write(inputs[i], "row " + i + "\n");
+        }
+        //an entry holds 7 bytes and the _used file, the budget keeps two entries
+        String budget = "40";
+        assertFalse(run(inputs[0], new File(root, "a"), cache, "--cache-max-bytes", budget));
+        Thread.sleep(5);
+        assertFalse(run(inputs[1], new File(root, "b"), cache, "--cache-max-bytes", budget));
+        Thread.sleep(5);
+        //the hit makes the first entry the most recent
+        assertTrue(run(inputs[0], new File(root, "c"), cache, "--cache-max-bytes", budget));
+        Thread.sleep(5);
+        assertFalse(run(inputs[2], new File(root, "d"), cache, "--cache-max-bytes", budget));
+        assertEquals(2, new File(cache).list().length);
+        assertTrue(run(inputs[0], new File(root, "e"), cache, "--cache-max-bytes", budget));
+        assertFalse(run(inputs[1], new File(root, "f"), cache, "--cache-max-bytes", budget));
+    }
+
+    /**
+     * Run a fake job through the cache, the job writes "result"
+     * @return true if the output was restored from the cache
+     */
+    private static boolean run(File input, File output, String cache, String... flags) throws Exception
+    {
+        String[] args = new String[flags.length + 4];
+        args[0] = input.getPath();
+        args[1] = output.getPath();
+        args[2] = "--cache";
+        args[3] = cache;
+        System.arraycopy(flags, 0, args, 4, flags.length);
+        JobOptions options = JobOptions.parse(args);
+        RunReport report = new RunReport("test");
+        ResultCache resultCache = ResultCache.open("test", options, new Configuration());
+        if (resultCache.restore(report))
+            return true;
+        write(new File(output, "part-r-00000"), "result\n");
+        write(new File(output, RunReport.FILE_NAME), "{}");
+        resultCache.store(report);
+        return false;
+    }
+
+    private static void write(File file, String text) throws Exception
+    {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(File file) throws Exception
+    {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
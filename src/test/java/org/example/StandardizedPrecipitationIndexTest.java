@@ -0,0 +1,122 @@
+package org.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit test for the rolling sums and the standardized precipitation index
+ */
+public class StandardizedPrecipitationIndexTest
+{
+    @Test
+    public void shouldSlideTheWindowsLikeASum()
+    {
+        Random random = new Random(7);
+        int[] values = new int[500];
+        MonthlyWindows windows = new MonthlyWindows(3, 6, 12);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(400);
+            windows.add(values[i]);
+            for (int w = 0; w < windows.windows(); w++) {
+                int size = windows.size(w);
+                assertEquals(i + 1 >= size, windows.isFull(w));
+                if (!windows.isFull(w))
+                    continue;
+                long sum = 0;
+                for (int j = i - size + 1; j <= i; j++)
+                    sum += values[j];
+                assertEquals(sum, windows.sum(w));
+            }
+        }
+    }
+
+    @Test
+    public void shouldStartTheWindowsOverAfterAMissingYear()
+    {
+        StandardizedPrecipitationIndex index = new StandardizedPrecipitationIndex(3, 12);
+        int[] months = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12};
+        index.add(1900, months);
+        index.add(1901, months);
+        index.add(1903, months);
+        List<String> lines = index.lines();
+        assertEquals(36, lines.size());
+        assertEquals("1/1900\t- -\t- -", lines.get(0));
+        assertEquals("3/1900\t6 -", lines.get(2).substring(0, lines.get(2).lastIndexOf('\t')));
+        //January 1901 sums December, November and January
+        assertTrue(lines.get(12).startsWith("1/1901\t24 78\t"));
+        assertTrue(lines.get(24).startsWith("1/1903\t- -\t"));
+        assertTrue(lines.get(35).startsWith("12/1903\t33 78\t"));
+    }
+
+    @Test
+    public void shouldStandardizeTheSums()
+    {
+        Random random = new Random(11);
+        StandardizedPrecipitationIndex index = new StandardizedPrecipitationIndex(3);
+        int years = 400;
+        for (int y = 0; y < years; y++) {
+            int[] months = new int[RainfallRecord.MONTHS];
+            for (int m = 0; m < months.length; m++)
+                months[m] = random.nextInt(10) == 0 ? 0 : (int) (-100 * Math.log(random.nextDouble()));
+            index.add(1600 + y, months);
+        }
+        double sum = 0;
+        double squares = 0;
+        int count = 0;
+        for (String line : index.lines()) {
+            String value = line.substring(line.lastIndexOf('\t') + 1);
+            if (value.equals("-"))
+                continue;
+            double spi = Double.parseDouble(value);
+            sum += spi;
+            squares += spi * spi;
+            count++;
+        }
+        assertEquals(years * RainfallRecord.MONTHS - 2, count);
+        double mean = sum / count;
+        assertEquals(0, mean, 0.05);
+        assertEquals(1, Math.sqrt(squares / count - mean * mean), 0.05);
+    }
+
+    @Test
+    public void shouldApproximateTheDistributions()
+    {
+        for (double x = 0.1; x < 20; x += 0.7) {
+            assertEquals(1 - Math.exp(-x), StandardizedPrecipitationIndex.regularizedGamma(1, x), 1e-10);
+            assertEquals(1 - (1 + x) * Math.exp(-x), StandardizedPrecipitationIndex.regularizedGamma(2, x), 1e-10);
+        }
+        assertEquals(0, StandardizedPrecipitationIndex.normalDeviate(0.5), 1e-3);
+        assertEquals(1.96, StandardizedPrecipitationIndex.normalDeviate(0.975), 1e-3);
+        assertEquals(-1.645, StandardizedPrecipitationIndex.normalDeviate(0.05), 1e-3);
+    }
+
+    @Test
+    public void shouldWriteADecimalPointInAnyLocale()
+    {
+        StandardizedPrecipitationIndex index = new StandardizedPrecipitationIndex(1);
+        Random random = new Random(5);
+        for (int year = 1900; year < 1930; year++) {
+            int[] months = new int[12];
+            for (int i = 0; i < months.length; i++)
+                months[i] = 1 + random.nextInt(300);
+            index.add(year, months);
+        }
+        Locale locale = Locale.getDefault();
+        List<String> lines;
+        try {
+            Locale.setDefault(Locale.GERMANY);
+            lines = index.lines();
+        } finally {
+            Locale.setDefault(locale);
+        }
+        String last = lines.get(lines.size() - 1);
+        String formatted = last.substring(last.lastIndexOf('\t') + 1);
+        assertTrue(last, formatted.matches("-?\\d+\\.\\d\\d"));
+    }
+}
@@ -0,0 +1,67 @@
+package org.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+/**
+ * Unit test for the single pass statistics of a station
+ */
+public class StationSeriesTest
+{
+    @Test
+    public void shouldWriteTheLinesOfTheAggregatesOverTheSortedRows()
+    {
+        Random random = new Random(3);
+        StationSeries series = new StationSeries();
+        RainfallRecord record = new RainfallRecord();
+        //the second station crosses from 3 to 4 digit years, the text order is not the year order there
+        for (int firstYear : new int[]{1900, 950}) {
+            RainfallAggregates aggregates = new RainfallAggregates();
+            series.reset();
+            for (int year = firstYear; year < firstYear + 150; year++) {
+                //some years have two rows, they are summed and the last average is kept
+                for (int row = 0; row < (year % 6 == 0 ? 2 : 1); row++) {
+                    int[] months = new int[RainfallRecord.MONTHS];
+                    for (int i = 0; i < months.length; i++)
+                        months[i] = (year / 4) % 2 == 0 ? random.nextInt(100) : 80 + random.nextInt(200);
+                    record.set(7, year, months, (year / 4) % 2 == 0 ? 40 + random.nextInt(20) : 100 + random.nextInt(50));
+                    aggregates.add(record);
+                    series.add(record);
+                }
+            }
+            assertEquals(aggregates.minMaxLines(), series.minMaxLines());
+            assertEquals(aggregates.seasonsLines(), series.seasonsLines());
+            assertEquals(aggregates.droughtLines(), series.droughtLines());
+            assertTrue(series.droughtLines().size() > 1);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectRowsOutOfYearOrder()
+    {
+        StationSeries series = new StationSeries();
+        RainfallRecord record = new RainfallRecord();
+        record.set(1951, new int[RainfallRecord.MONTHS], 0);
+        series.add(record);
+        record.set(1950, new int[RainfallRecord.MONTHS], 0);
+        series.add(record);
+    }
+
+    @Test
+    public void shouldRejectFieldsAfterTheStationColumn()
+    {
+        RainfallRecord record = new RainfallRecord();
+        assertTrue(record.parse(new Text("1950 1 2 3 4 5 6 7 8 9 10 11 12 6")));
+        assertTrue(record.parse(new Text("17 1950 1 2 3 4 5 6 7 8 9 10 11 12 6 ")));
+        assertEquals(17, record.getStation());
+        assertFalse(record.parse(new Text("17 1950 1 2 3 4 5 6 7 8 9 10 11 12 6 99")));
+        assertTrue(record.parseCsv(new Text("17,1950,1,2,3,4,5,6,7,8,9,10,11,12")));
+        assertFalse(record.parseCsv(new Text("17,1950,1,2,3,4,5,6,7,8,9,10,11,12,99")));
+    }
+}
@@ -0,0 +1,56 @@
+package org.example;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.WritableComparator;
+import org.junit.Test;
+
+import java.io.IOException;
+
+/**
+ * Unit test for the (station, year) key
+ */
+public class StationYearKeyTest
+{
+    @Test
+    public void shouldSortByStationThenYearAndGroupByStation() throws IOException
+    {
+        int[][] keys = {{3, 1990}, {3, 2001}, {-1, 1950}, {7, 1950}, {3, 1990}};
+        WritableComparator sort = WritableComparator.get(StationYearKey.class);
+        StationYearKey.StationComparator group = new StationYearKey.StationComparator();
+        StationYearKey.StationPartitioner<Object> partitioner = new StationYearKey.StationPartitioner<>();
+        for (int[] a : keys) {
+            for (int[] b : keys) {
+                StationYearKey first = key(a);
+                StationYearKey second = key(b);
+                byte[] bytes1 = bytes(first);
+                byte[] bytes2 = bytes(second);
+                int expected = a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(a[1], b[1]);
+                assertEquals(expected, first.compareTo(second));
+                assertEquals(expected, sort.compare(bytes1, 0, bytes1.length, bytes2, 0, bytes2.length));
+                assertEquals(Integer.compare(a[0], b[0]), group.compare(bytes1, 0, bytes1.length, bytes2, 0, bytes2.length));
+                assertEquals(Integer.compare(a[0], b[0]), group.compare(first, second));
+                //the years of a station go to the same reducer
+                if (a[0] == b[0])
+                    assertEquals(partitioner.getPartition(first, null, 7), partitioner.getPartition(second, null, 7));
+            }
+        }
+    }
+
+    private static StationYearKey key(int[] value)
+    {
+        StationYearKey key = new StationYearKey();
+        key.set(value[0], value[1]);
+        return key;
+    }
+
+    private static byte[] bytes(StationYearKey key) throws IOException
+    {
+        DataOutputBuffer out = new DataOutputBuffer();
+        key.write(out);
+        byte[] bytes = new byte[out.getLength()];
+        System.arraycopy(out.getData(), 0, bytes, 0, bytes.length);
+        return bytes;
+    }
+}
@@ -0,0 +1,81 @@
+package org.example;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for the streaming data file parser
+ */
+public class StreamingDataFileParserTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldKeepRowOrderAcrossSmallChunks() throws Exception
+    {
+        StringBuilder csv = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int year = 1900; year < 2000; year++) {
+            csv.append(year);
+            expected.append(year);
+            int sum = 0;
+            for (int month = 1; month <= 12; month++) {
+                int value = (year * 31 + month * 7) % 250;
+                csv.append(',').append(value);
+                expected.append(' ').append(value);
+                sum += value;
+            }
+            csv.append(year % 2 == 0 ? "\r\n" : "\n");
+            expected.append(' ').append(sum / 12).append('\n');
+        }
+        Path input = folder.newFile("data.csv").toPath();
+        Files.write(input, csv.toString().getBytes(StandardCharsets.US_ASCII));
+        Path output = folder.getRoot().toPath().resolve("parsed.txt");
+
+        long rows = new StreamingDataFileParser(100, 4).parse(input, output);
+
+        assertEquals(100, rows);
+        assertEquals(expected.toString(), new String(Files.readAllBytes(output), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void shouldSkipBlankLinesAndParseLastRowWithoutNewline() throws Exception
+    {
+        Path input = folder.newFile("data.csv").toPath();
+        Files.write(input, "2000,1,2,3\n\n2001,-4,5,6".getBytes(StandardCharsets.US_ASCII));
+        Path output = folder.getRoot().toPath().resolve("parsed.txt");
+
+        long rows = new StreamingDataFileParser(4, 2).parse(input, output);
+
+        assertEquals(2, rows);
+        assertEquals("2000 1 2 3 2\n2001 -4 5 6 2\n", new String(Files.readAllBytes(output), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void shouldKeepTheStationColumnInFront() throws Exception
+    {
+        Path input = folder.newFile("data.csv").toPath();
+        Files.write(input, "42,2000,1,2,3,4,5,6,7,8,9,10,11,12\n".getBytes(StandardCharsets.US_ASCII));
+        Path output = folder.getRoot().toPath().resolve("parsed.txt");
+
+        assertEquals(1, new StreamingDataFileParser(64, 2).parse(input, output));
+
+        String line = new String(Files.readAllBytes(output), StandardCharsets.US_ASCII);
+        assertEquals("42 2000 1 2 3 4 5 6 7 8 9 10 11 12 6\n", line);
+        assertEquals(line, DataFileParser.parseLine("42,2000,1,2,3,4,5,6,7,8,9,10,11,12"));
+        RainfallRecord record = new RainfallRecord();
+        assertEquals(true, record.parse(new org.apache.hadoop.io.Text(line)));
+        assertEquals(42, record.getStation());
+        assertEquals(2000, record.getYear());
+        assertEquals(12, record.getMonth(11));
+        assertEquals(6, record.getAverage());
+    }
+}
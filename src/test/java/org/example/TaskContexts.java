@@ -0,0 +1,312 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.mapred.RawKeyValueIterator;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.OutputCommitter;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.util.Progress;
+
+/**
+ * Stub task contexts in order to run mappers and reducers without a cluster
+ */
+public final class TaskContexts
+{
+    private TaskContexts()
+    {
+    }
+
+    /**
+     * A record writer that keeps the written pairs as text output format lines
+     */
+    public static class LineWriter<K, V> extends RecordWriter<K, V>
+    {
+        public final List<String> lines = new ArrayList<>();
+
+        @Override
+        public void write(K key, V value)
+        {
+            //like the text output format, a null value writes the key only
+            lines.add(value == null || value instanceof NullWritable ? String.valueOf(key) : key + "\t" + value);
+        }
+
+        @Override
+        public void close(TaskAttemptContext context)
+        {
+        }
+    }
+
+    /**
+     * A status reporter whose counters are kept in memory
+     */
+    public static class Reporter extends StatusReporter
+    {
+        private final Map<String, Counter> counters = new HashMap<>();
+
+        @Override
+        public Counter getCounter(Enum<?> name)
+        {
+            return getCounter(name.getDeclaringClass().getName(), name.name());
+        }
+
+        @Override
+        public Counter getCounter(String group, String name)
+        {
+            Counter counter = counters.get(group + "." + name);
+            if (counter == null) {
+                counter = new Counter() { };
+                counters.put(group + "." + name, counter);
+            }
+            return counter;
+        }
+
+        @Override
+        public void progress()
+        {
+        }
+
+        @Override
+        public float getProgress()
+        {
+            return 0;
+        }
+
+        @Override
+        public void setStatus(String status)
+        {
+        }
+    }
+
+    private static final OutputCommitter COMMITTER = new OutputCommitter()
+    {
+        @Override
+        public void setupJob(JobContext context)
+        {
+        }
+
+        @Override
+        public void setupTask(TaskAttemptContext context)
+        {
+        }
+
+        @Override
+        public boolean needsTaskCommit(TaskAttemptContext context)
+        {
+            return false;
+        }
+
+        @Override
+        public void commitTask(TaskAttemptContext context)
+        {
+        }
+
+        @Override
+        public void abortTask(TaskAttemptContext context)
+        {
+        }
+    };
+
+    /**
+     * A record reader over in memory values, the keys are the value indexes
+     */
+    public static class ListReader<V> extends RecordReader<LongWritable, V>
+    {
+        private final List<V> values;
+        private final LongWritable key = new LongWritable();
+        private int index = -1;
+
+        public ListReader(List<V> values)
+        {
+            this.values = values;
+        }
+
+        /**
+         * Start again from the first value
+         */
+        public void reset()
+        {
+            index = -1;
+        }
+
+        @Override
+        public void initialize(InputSplit split, TaskAttemptContext context)
+        {
+        }
+
+        @Override
+        public boolean nextKeyValue()
+        {
+            if (++index >= values.size())
+                return false;
+            key.set(index);
+            return true;
+        }
+
+        @Override
+        public LongWritable getCurrentKey()
+        {
+            return key;
+        }
+
+        @Override
+        public V getCurrentValue()
+        {
+            return values.get(index);
+        }
+
+        @Override
+        public float getProgress()
+        {
+            return values.isEmpty() ? 1 : index / (float) values.size();
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+
+    /**
+     * The serialized pairs of a reducer input, sorted by key like the shuffle does
+     */
+    public static class SortedPairs
+    {
+        private final List<byte[]> rawKeys = new ArrayList<>();
+        private final List<byte[]> rawValues = new ArrayList<>();
+
+        /**
+         * @param keys - the keys of the pairs
+         * @param values - the values of the pairs
+         */
+        public <K extends WritableComparable, V extends Writable> SortedPairs(final List<K> keys, List<V> values)
+                throws IOException
+        {
+            Integer[] order = new Integer[keys.size()];
+            for (int i = 0; i < order.length; i++)
+                order[i] = i;
+            Arrays.sort(order, (a, b) -> keys.get(a).compareTo(keys.get(b)));
+            DataOutputBuffer buffer = new DataOutputBuffer();
+            for (int i : order) {
+                buffer.reset();
+                keys.get(i).write(buffer);
+                rawKeys.add(Arrays.copyOf(buffer.getData(), buffer.getLength()));
+                buffer.reset();
+                values.get(i).write(buffer);
+                rawValues.add(Arrays.copyOf(buffer.getData(), buffer.getLength()));
+            }
+        }
+
+        /**
+         * @return a new iterator over the pairs
+         */
+        public RawKeyValueIterator iterator()
+        {
+            return new RawKeyValueIterator()
+            {
+                private int index = -1;
+                private final DataInputBuffer key = new DataInputBuffer();
+                private final DataInputBuffer value = new DataInputBuffer();
+
+                @Override
+                public DataInputBuffer getKey()
+                {
+                    return key;
+                }
+
+                @Override
+                public DataInputBuffer getValue()
+                {
+                    return value;
+                }
+
+                @Override
+                public boolean next()
+                {
+                    if (++index >= rawKeys.size())
+                        return false;
+                    key.reset(rawKeys.get(index), rawKeys.get(index).length);
+                    value.reset(rawValues.get(index), rawValues.get(index).length);
+                    return true;
+                }
+
+                @Override
+                public void close()
+                {
+                }
+
+                @Override
+                public Progress getProgress()
+                {
+                    return new Progress();
+                }
+            };
+        }
+    }
+
+    /**
+     * @return a map context that writes to the writer, map is called directly on the mapper
+     */
+    public static <KI, VI, KO, VO> Mapper<KI, VI, KO, VO>.Context mapContext(
+            Mapper<KI, VI, KO, VO> mapper, Configuration conf, RecordWriter<KO, VO> writer)
+            throws IOException, InterruptedException
+    {
+        return mapContext(mapper, conf, null, writer);
+    }
+
+    /**
+     * @return a map context that reads from the reader and writes to the writer, for Mapper.run
+     */
+    public static <KI, VI, KO, VO> Mapper<KI, VI, KO, VO>.Context mapContext(
+            Mapper<KI, VI, KO, VO> mapper, Configuration conf, RecordReader<KI, VI> reader,
+            RecordWriter<KO, VO> writer) throws IOException, InterruptedException
+    {
+        return mapper.new Context(conf, new TaskAttemptID(), reader, writer, COMMITTER, new Reporter(), null);
+    }
+
+    /**
+     * @return a reduce context over the pairs that writes to the writer, for Reducer.run
+     */
+    public static <KI, VI, KO, VO> Reducer<KI, VI, KO, VO>.Context reduceContext(
+            Reducer<KI, VI, KO, VO> reducer, Configuration conf, Class<KI> keyClass, Class<VI> valueClass,
+            SortedPairs pairs, RecordWriter<KO, VO> writer) throws IOException, InterruptedException
+    {
+        Reporter reporter = new Reporter();
+        return reducer.new Context(conf, new TaskAttemptID(), pairs.iterator(),
+                reporter.getCounter("test", "keys"), reporter.getCounter("test", "values"), writer, COMMITTER,
+                reporter, WritableComparator.get(keyClass.asSubclass(WritableComparable.class)), keyClass, valueClass);
+    }
+
+    /**
+     * Run the reducer over the pairs, the pairs are sorted by key first like the shuffle does
+     * @param keys - the keys of the pairs
+     * @param values - the values of the pairs
+     */
+    public static <KI extends WritableComparable, VI extends Writable, KO, VO> void runReducer(
+            Reducer<KI, VI, KO, VO> reducer, Configuration conf, Class<KI> keyClass, Class<VI> valueClass,
+            List<KI> keys, List<VI> values, RecordWriter<KO, VO> writer) throws IOException, InterruptedException
+    {
+        reducer.run(reduceContext(reducer, conf, keyClass, valueClass, new SortedPairs(keys, values), writer));
+    }
+}